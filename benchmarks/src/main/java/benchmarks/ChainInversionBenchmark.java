@@ -0,0 +1,63 @@
+package benchmarks;
+
+import contracts.IDistanceMatrix;
+import heuristics.ChainInversion;
+import heuristics.TspSeqGrowthByNearest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of primary heuristic {@link ChainInversion} on bundled 664-node instance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChainInversionBenchmark {
+    private static final int BATCH = 64;
+
+    private ChainInversion inversion;
+    private final int[] batchLengths = new int[BATCH];
+
+    @Setup
+    public void setUp() throws IOException {
+        IDistanceMatrix dij = Instances.load(664);
+        TspSeqGrowthByNearest construction = new TspSeqGrowthByNearest(dij);
+        construction.solve();
+        this.inversion = new ChainInversion(construction.getSolutionRoute().clone(), 5, dij, Instances.SEED);
+    }
+
+    @Benchmark
+    public int nextModification() {
+        return this.inversion.nextModification();
+    }
+
+    @Benchmark
+    public int nextAndApplyModification() {
+        int length = this.inversion.nextModification();
+        this.inversion.applyModification();
+        return length;
+    }
+
+    /**
+     * One operation evaluates {@value #BATCH} modifications.
+     */
+    @Benchmark
+    public int[] nextModificationsBatch() {
+        this.inversion.nextModifications(this.batchLengths, BATCH);
+        return this.batchLengths;
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import contracts.IDistanceMatrix;
+import heuristics.TspSeqGrowthByNearest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of initial route by {@link TspSeqGrowthByNearest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ConstructionBenchmark {
+    @Param({"664", "2000", "5000"})
+    public int nodes;
+
+    @Param({"NEAREST_BY_SUM", "CHEAPEST_INSERTION"})
+    public TspSeqGrowthByNearest.Selection selection;
+
+    private IDistanceMatrix dij;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.dij = Instances.load(this.nodes);
+    }
+
+    @Benchmark
+    public int[] solve(TourQuality quality) {
+        boolean cache = (this.selection == TspSeqGrowthByNearest.Selection.CHEAPEST_INSERTION);
+        TspSeqGrowthByNearest heuristic = new TspSeqGrowthByNearest(this.dij, this.selection, cache);
+        heuristic.solve();
+        quality.record(Instances.routeLength(this.dij, heuristic.getSolutionRoute()));
+        return heuristic.getSolutionRoute();
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import contracts.IDistanceMatrix;
+import matrix.CoordinateDistanceMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one distance lookup in dense matrix and in matrix computing distances from coordinates, with and without
+ * row cache. Lookups are either random pairs (access pattern of annealing), random pairs whose first node is from small
+ * hot set (access pattern of local search around few nodes) or scans of whole rows (access pattern of construction
+ * heuristics).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class DistanceLookupBenchmark {
+    private static final int PAIRS = 4096;
+    private static final int HOT_ROWS = 256;
+
+    @Param({"2000", "5000"})
+    public int nodes;
+
+    /**
+     * <code>dense</code> - the most compact dense matrix, otherwise metric of matrix computing distances from
+     * coordinates, optionally with row cache of default size
+     */
+    @Param({"dense", "EUC_2D", "EUC_2D-cached", "GEO", "GEO-cached"})
+    public String matrix;
+
+    private IDistanceMatrix dij;
+    private final int[] from = new int[PAIRS];
+    private final int[] to = new int[PAIRS];
+    private final int[] hotFrom = new int[PAIRS];
+    private int row;
+
+    @Setup
+    public void setUp() {
+        if (this.matrix.equals("dense")) {
+            this.dij = Instances.euclidean(this.nodes, Instances.SEED);
+        } else {
+            boolean cached = this.matrix.endsWith("-cached");
+            CoordinateDistanceMatrix.Metric metric = CoordinateDistanceMatrix.Metric.valueOf(
+                    cached ? this.matrix.substring(0, this.matrix.indexOf('-')) : this.matrix);
+            this.dij = Instances.coordinates(this.nodes, Instances.SEED, metric,
+                    cached ? CoordinateDistanceMatrix.DEFAULT_CACHE_BYTES : 0);
+        }
+        SplittableRandom rand = new SplittableRandom(Instances.SEED);
+        for (int i = 0; i < PAIRS; i++) {
+            this.from[i] = rand.nextInt(this.nodes);
+            this.to[i] = rand.nextInt(this.nodes);
+            this.hotFrom[i] = this.from[i % HOT_ROWS];
+        }
+    }
+
+    /**
+     * One operation is one lookup of random pair of nodes.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public long randomPairs() {
+        long sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += this.dij.getDistance(this.from[i], this.to[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * One operation is one lookup of random pair of nodes, first node is one of {@value #HOT_ROWS} nodes.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public long hotRows() {
+        long sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += this.dij.getDistance(this.hotFrom[i], this.to[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * One operation is scan of whole row, rows are scanned in turn.
+     */
+    @Benchmark
+    public long rowScan() {
+        long sum = 0;
+        for (int j = 0; j < this.nodes; j++) {
+            sum += this.dij.getDistance(this.row, j);
+        }
+        this.row = (this.row + 1) % this.nodes;
+        return sum;
+    }
+}
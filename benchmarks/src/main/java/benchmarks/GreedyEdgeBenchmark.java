@@ -0,0 +1,51 @@
+package benchmarks;
+
+import contracts.IDistanceMatrix;
+import heuristics.GreedyEdge;
+import matrix.CandidateLists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of initial route by {@link GreedyEdge}, candidate lists are built in advance. Compare with
+ * {@link ConstructionBenchmark} on the same instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class GreedyEdgeBenchmark {
+    @Param({"664", "2000", "5000"})
+    public int nodes;
+
+    private IDistanceMatrix dij;
+    private CandidateLists candidates;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.dij = Instances.load(this.nodes);
+        this.candidates = CandidateLists.build(this.dij, 10);
+    }
+
+    @Benchmark
+    public int[] solve(TourQuality quality) {
+        GreedyEdge heuristic = new GreedyEdge(this.dij, this.candidates);
+        heuristic.solve();
+        quality.record(heuristic.getRouteLength());
+        return heuristic.getSolutionRoute();
+    }
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import contracts.IDistanceMatrix;
+import matrix.CoordinateDistanceMatrix;
+import matrix.DistanceMatrices;
+import matrix.DistanceMatrixFile;
+import matrix.FlatDistanceMatrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Instances used by benchmarks - matrices bundled in <code>files</code> directory of repository and seeded synthetic
+ * Euclidean instances generated in-process.
+ */
+final class Instances {
+    static final String BUNDLED_664 = "Matica_PO_(0664).txt";
+    static final long SEED = 20_240_501L;
+
+    private Instances() {
+    }
+
+    /**
+     * @return bundled matrix file. Directory is taken from <code>tsp.files</code> system property, else
+     * <code>files</code> directory is searched in working directory and its parent.
+     */
+    static File bundledFile(String name) {
+        String dir = System.getProperty("tsp.files");
+        if (dir != null)
+            return new File(dir, name);
+        File file = new File("files", name);
+        return file.isFile() ? file : new File("../files", name);
+    }
+
+    /**
+     * @param nodes count of nodes, 664 loads bundled instance, other counts generate Euclidean instance
+     */
+    static IDistanceMatrix load(int nodes) throws IOException {
+        return (nodes == 664) ? DistanceMatrixFile.load(bundledFile(BUNDLED_664)) : euclidean(nodes, SEED);
+    }
+
+    /**
+     * Generates symmetric instance with nodes placed uniformly in square 10000 x 10000 and distances rounded to the
+     * nearest integer.
+     */
+    static IDistanceMatrix euclidean(int nodes, long seed) {
+        double[] x = coordinates(nodes, seed);
+        double[] y = coordinates(nodes, seed + 1);
+        int[] cells = new int[nodes * nodes];
+        for (int i = 0; i < nodes; i++) {
+            for (int j = 0; j < nodes; j++) {
+                cells[i * nodes + j] = (int) Math.round(Math.hypot(x[i] - x[j], y[i] - y[j]));
+            }
+        }
+        return DistanceMatrices.compact(new FlatDistanceMatrix(nodes, cells));
+    }
+
+    /**
+     * Generates instance whose distances are computed from coordinates on demand. For {@link
+     * CoordinateDistanceMatrix.Metric#EUC_2D} it's the same instance as {@link #euclidean(int, long)}, other metrics
+     * get the same coordinates scaled to their ranges.
+     * @param cacheBytes upper bound of memory occupied by cached rows of distances
+     */
+    static CoordinateDistanceMatrix coordinates(int nodes, long seed, CoordinateDistanceMatrix.Metric metric,
+                                                long cacheBytes) {
+        double[] x = coordinates(nodes, seed);
+        double[] y = coordinates(nodes, seed + 1);
+        if (metric == CoordinateDistanceMatrix.Metric.GEO) {
+            for (int i = 0; i < nodes; i++) {
+                x[i] = x[i] * 0.018 - 90;  // latitude
+                y[i] = y[i] * 0.036 - 180; // longitude
+            }
+        }
+        return new CoordinateDistanceMatrix(x, y, metric, cacheBytes);
+    }
+
+    /**
+     * @return coordinates drawn uniformly from interval &lt;0, 10000).
+     */
+    private static double[] coordinates(int nodes, long seed) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        double[] coordinates = new double[nodes];
+        for (int i = 0; i < nodes; i++) {
+            coordinates[i] = rand.nextDouble() * 10_000;
+        }
+        return coordinates;
+    }
+
+    /**
+     * @return length of closed <code>route</code>.
+     */
+    static long routeLength(IDistanceMatrix dij, int[] route) {
+        long length = 0;
+        for (int i = 0; i < route.length - 1; i++) {
+            length += dij.getDistance(route[i], route[i + 1]);
+        }
+        return length;
+    }
+}
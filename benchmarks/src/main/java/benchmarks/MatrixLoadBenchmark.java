@@ -0,0 +1,60 @@
+package benchmarks;
+
+import contracts.IDistanceMatrix;
+import matrix.DistanceMatrixFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of bundled 664-node matrix from text file (parse and compaction) and from binary file (mapping).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixLoadBenchmark {
+    private File text;
+    private File binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.text = Instances.bundledFile(Instances.BUNDLED_664);
+        this.binary = File.createTempFile("matrix", ".bin");
+        DistanceMatrixFile.write(DistanceMatrixFile.parseText(this.text), this.binary);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.binary.delete();
+    }
+
+    @Benchmark
+    public IDistanceMatrix parseText() throws IOException {
+        return DistanceMatrixFile.parseText(this.text);
+    }
+
+    @Benchmark
+    public IDistanceMatrix loadText() throws IOException {
+        return DistanceMatrixFile.load(this.text);
+    }
+
+    @Benchmark
+    public IDistanceMatrix mapBinary() throws IOException {
+        return DistanceMatrixFile.load(this.binary);
+    }
+}
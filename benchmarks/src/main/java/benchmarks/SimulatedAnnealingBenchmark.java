@@ -0,0 +1,60 @@
+package benchmarks;
+
+import contracts.IDistanceMatrix;
+import heuristics.ChainInversion;
+import heuristics.TspSeqGrowthByNearest;
+import metaheuristics.SaForTsp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaForTsp} with {@link ChainInversion} running fixed count of transits from the same initial route, so both
+ * speed and quality of result are comparable between runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class SimulatedAnnealingBenchmark {
+    @Param({"1000000"})
+    public long transits;
+
+    @Param({"NONE", "BEST_OF_BATCH"})
+    public SaForTsp.BatchMode batchMode;
+
+    private IDistanceMatrix dij;
+    private int[] initialRoute;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.dij = Instances.load(664);
+        TspSeqGrowthByNearest construction = new TspSeqGrowthByNearest(this.dij);
+        construction.solve();
+        this.initialRoute = construction.getSolutionRoute();
+    }
+
+    @Benchmark
+    public int solve(TourQuality quality) {
+        SaForTsp annealing = new SaForTsp(new ChainInversion(this.initialRoute.clone(), 5, this.dij));
+        annealing.setBatchMode(this.batchMode, 16);
+        annealing.setTransitLimit(this.transits);
+        annealing.setMaxIdleCycles(Integer.MAX_VALUE);
+        annealing.solve();
+        quality.record(annealing.getBestRouteLength());
+        return annealing.getBestRouteLength();
+    }
+}
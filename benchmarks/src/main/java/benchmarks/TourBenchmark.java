@@ -0,0 +1,68 @@
+package benchmarks;
+
+import contracts.ITour;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tour.ArrayTour;
+import tour.TwoLevelListTour;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reversal of random path and of traversal of the whole cycle by {@link ITour#next(int)}, for array and
+ * two-level list tours of growing size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TourBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int nodes;
+
+    @Param({"array", "twolevel"})
+    public String tour;
+
+    private ITour t;
+    private final Random rand = new Random(Instances.SEED);
+
+    @Setup
+    public void setUp() {
+        int[] route = new int[this.nodes + 1];
+        for (int i = 0; i < this.nodes; i++) {
+            route[i] = i;
+        }
+        route[this.nodes] = route[0];
+        this.t = this.tour.equals("array") ? new ArrayTour(route) : new TwoLevelListTour(route);
+    }
+
+    @Benchmark
+    public ITour randomReverse() {
+        this.t.reverse(this.rand.nextInt(this.nodes), this.rand.nextInt(this.nodes));
+        return this.t;
+    }
+
+    /**
+     * One operation visits all nodes of the cycle.
+     */
+    @Benchmark
+    public int traverse() {
+        int node = 0;
+        for (int k = 0; k < this.nodes; k++) {
+            node = this.t.next(node);
+        }
+        return node;
+    }
+}
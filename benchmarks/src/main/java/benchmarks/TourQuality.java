@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Secondary result of benchmarks, which publishes length of found tours next to the measured speed. JMH adds up
+ * event counters over iterations, so counters are sum of lengths and count of solves, whose ratio is mean tour length
+ * for any count of iterations. Mean of the whole trial (including warmup) is also printed at its end.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class TourQuality {
+    public long tourLengthSum;    // sum of lengths of tours found in current iteration
+    public long solves;           // count of tours found in current iteration
+    private long trialLengthSum;  // sum of lengths of tours found in the whole trial
+    private long trialSolves;     // count of tours found in the whole trial
+
+    @Setup(Level.Iteration)
+    public void clean() {
+        this.tourLengthSum = 0;
+        this.solves = 0;
+    }
+
+    /**
+     * Records length of tour found by one invocation of benchmark.
+     */
+    public void record(long length) {
+        this.tourLengthSum += length;
+        this.solves++;
+        this.trialLengthSum += length;
+        this.trialSolves++;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (this.trialSolves > 0)
+            System.out.printf("%nMean tour length: %.1f (%d solves)%n", (double) this.trialLengthSum / this.trialSolves,
+                    this.trialSolves);
+    }
+}
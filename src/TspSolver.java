@@ -1,54 +1,96 @@
+import batch.BatchRunner;
+import bounds.HeldKarpBound;
+import contracts.IDistanceMatrix;
 import contracts.ITspChainOperation;
 import contracts.ITspHeuristic;
 import heuristics.ChainInversion;
 import heuristics.TspSeqGrowthByNearest;
+import matrix.CandidateLists;
+import matrix.DistanceMatrixFile;
+import metaheuristics.IteratedLinKernighan;
 import metaheuristics.SaForTsp;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.util.StringTokenizer;
+import java.io.IOException;
+import java.util.List;
 
 public class TspSolver {
+    private static final double MAX_GAP = 0.005; // annealing stops when its route is within 0.5 % of lower bound
+    private static final double POLISH_SECONDS = 1; // time limit of Lin-Kernighan search polishing annealed route
 
     public static void main(String[] args) {
-//        int[][] dij = loadDistanceMatrix(new File("files/mala_matica_dij.txt"));
-        int[][] dij = loadDistanceMatrix(new File("files/matica_PO_(0664).txt"));
+        if (args.length >= 2 && args[0].equals("--batch")) {
+            runBatch(new File(args[1]), (args.length > 2) ? Integer.parseInt(args[2])
+                    : Runtime.getRuntime().availableProcessors());
+            return;
+        }
+//        IDistanceMatrix dij = loadDistanceMatrix(new File("files/mala_matica_dij.txt"));
+        IDistanceMatrix dij = loadDistanceMatrix(new File("files/matica_PO_(0664).txt"));
 
         ITspHeuristic initSolExecutor = new TspSeqGrowthByNearest(dij);
         initSolExecutor.solve();
         int[] initSolutionPath = initSolExecutor.getSolutionRoute();
         initSolExecutor.printSolution();
         ITspChainOperation primaryHeur = new ChainInversion(initSolutionPath, 5, dij);
+        // lower bound is computed in parallel with annealing, which stops when its route is proven nearly optimal
+        HeldKarpBound lowerBound = new HeldKarpBound(dij, primaryHeur.getRouteLength());
+        Thread boundThread = new Thread(lowerBound::solve, "held-karp");
+        boundThread.start();
         SaForTsp tspSimAnnealing = new SaForTsp(primaryHeur);
+        tspSimAnnealing.setGapLimit(lowerBound, MAX_GAP);
         tspSimAnnealing.solve();
+        // annealed route is polished by local search, unless it's already close enough to lower bound, which keeps
+        // improving in parallel with polishing
+        IteratedLinKernighan polishing = new IteratedLinKernighan(tspSimAnnealing.getBestRoute(), dij,
+                CandidateLists.build(dij, 10), 25);
+        polishing.setTimeLimit(POLISH_SECONDS);
+        polishing.setGapLimit(lowerBound, MAX_GAP);
+        polishing.solve();
+        // bound is not needed after polishing, so it isn't computed until its own stop condition
+        lowerBound.stop();
+        try {
+            boundThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         tspSimAnnealing.printSolution();
+        polishing.printSolution();
+        lowerBound.printSolution();
+    }
+
+    /**
+     * Solves all instances of <code>manifest</code> (see {@link BatchRunner#readManifest(File)}) and prints line with
+     * result of each of them, followed by summary on standard error output.
+     * @param parallelism count of concurrently solved instances
+     */
+    private static void runBatch(File manifest, int parallelism) {
+        try {
+            List<BatchRunner.Task> tasks = BatchRunner.readManifest(manifest);
+            BatchRunner runner = new BatchRunner(parallelism, BatchRunner.DEFAULT_CACHE_BYTES);
+            long start = System.nanoTime();
+            int solved = runner.run(tasks, System.out);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            runner.shutdown();
+            System.err.printf(" Solved %d of %d instances in %.1f s (%.1f per minute), matrices loaded %d times, "
+                    + "reused %d times%n", solved, tasks.size(), seconds, solved / seconds * 60,
+                    runner.getCache().getMisses(), runner.getCache().getHits());
+        } catch (IOException e) {
+            System.out.println("error " + e);
+        }
     }
 
-    private static int[][] loadDistanceMatrix(File file){
+    /**
+     * Loads matrix from text or binary file (see {@link DistanceMatrixFile}) and reports how long the loading took and
+     * how much memory the matrix occupies.
+     */
+    private static IDistanceMatrix loadDistanceMatrix(File file){
         try {
-            BufferedReader bfr = new BufferedReader(new FileReader(file));
-            String line = "";
-            int lineIndex = -1;
-            int M;
-            int[][] dij = null;
-            while ((line = bfr.readLine()) != null) {
-                if (lineIndex > -1) {
-                    StringTokenizer st = new StringTokenizer(line, " ");
-                    int offset = 0;
-                    while (st.hasMoreTokens()) {
-                        dij[lineIndex][offset] = Integer.parseInt(st.nextToken());
-                        offset++;
-                    }
-                }
-                else {
-                    M = Integer.parseInt(line);
-                    dij = new int [M][M];
-                }
-                lineIndex++;
-            }
-            bfr.close();
+            long start = System.nanoTime();
+            IDistanceMatrix dij = DistanceMatrixFile.load(file);
+            long duration = System.nanoTime() - start;
+            System.out.printf(" Matrix %s loaded in %.1f ms (%d nodes, %d bytes of distances)%n", file,
+                    duration / 1e6, dij.getNodesCount(), dij.getStorageBytes());
             return dij;
         } catch (FileNotFoundException e) {
             e.printStackTrace();
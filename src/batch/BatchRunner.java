@@ -0,0 +1,172 @@
+package batch;
+
+import contracts.IDistanceMatrix;
+import heuristics.ChainInversion;
+import heuristics.TspSeqGrowthByNearest;
+import metaheuristics.SaForTsp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Solves many instances in one JVM, so start of JVM and warm-up of JIT compiler are paid once. Instances are solved
+ * concurrently by work-stealing pool and share cache of loaded matrices. Each instance is solved the same way as by
+ * <code>TspSolver</code> - initial route by {@link TspSeqGrowthByNearest}, then {@link SaForTsp} with
+ * {@link ChainInversion}.
+ * <p>
+ * Result of each instance is printed as one tab-separated line as soon as the instance is solved: path of matrix file,
+ * route length, milliseconds of loading, construction and annealing, and the route. Failed instance is reported by line
+ * with path, <code>ERROR</code> and description of the failure.
+ */
+public final class BatchRunner {
+    /**
+     * Instance of manifest - matrix file and time limit of annealing.
+     */
+    public static final class Task {
+        private final File file;
+        private final double seconds;
+
+        public Task(File file, double seconds) {
+            if (file == null)
+                throw new NullPointerException("Matrix file not provided");
+            if (seconds <= 0)
+                throw new IllegalArgumentException("Time limit must be positive");
+            this.file = file;
+            this.seconds = seconds;
+        }
+
+        public File getFile() {
+            return this.file;
+        }
+
+        public double getSeconds() {
+            return this.seconds;
+        }
+    }
+
+    public static final long DEFAULT_CACHE_BYTES = 1L << 30;
+
+    private final ForkJoinPool pool;
+    private final MatrixCache cache;
+
+    /**
+     * Creates runner with one worker per available processor and matrix cache of {@link #DEFAULT_CACHE_BYTES} bytes.
+     */
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * @param parallelism count of concurrently solved instances
+     * @param cacheBytes upper bound of memory occupied by cached matrices
+     */
+    public BatchRunner(int parallelism, long cacheBytes) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("At least one worker is required");
+        this.pool = new ForkJoinPool(parallelism);
+        this.cache = new MatrixCache(cacheBytes);
+    }
+
+    /**
+     * Reads manifest, each its line consists of path of matrix file and time limit of annealing in seconds separated by
+     * white space. Relative paths are resolved against directory of manifest. Empty lines and lines starting with
+     * <code>#</code> are skipped.
+     */
+    public static List<Task> readManifest(File manifest) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        File dir = manifest.getAbsoluteFile().getParentFile();
+        try (BufferedReader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                int split = Math.max(line.lastIndexOf(' '), line.lastIndexOf('\t')); // path may contain spaces
+                if (split < 0)
+                    throw new IOException("Missing time limit on line " + lineNumber + " of " + manifest);
+                File file = new File(line.substring(0, split).trim());
+                try {
+                    double seconds = Double.parseDouble(line.substring(split + 1));
+                    tasks.add(new Task(file.isAbsolute() ? file : new File(dir, file.getPath()), seconds));
+                } catch (IllegalArgumentException e) { // includes NumberFormatException
+                    throw new IOException("Invalid time limit on line " + lineNumber + " of " + manifest);
+                }
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Solves all <code>tasks</code> and prints their results to <code>out</code> in order of finishing. Method
+     * returns when all tasks are finished.
+     * @return count of successfully solved instances
+     */
+    public int run(List<Task> tasks, PrintStream out) {
+        List<ForkJoinTask<Boolean>> running = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            running.add(this.pool.submit(() -> this.solve(task, out)));
+        }
+        int solved = 0;
+        for (ForkJoinTask<Boolean> task : running) {
+            if (task.join())
+                solved++;
+        }
+        return solved;
+    }
+
+    public MatrixCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Stops workers of the pool, running instances are finished.
+     */
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Solves one instance and prints its result line.
+     * @return <code>true</code> if instance was solved
+     */
+    private boolean solve(Task task, PrintStream out) {
+        try {
+            long start = System.nanoTime();
+            IDistanceMatrix dij = this.cache.get(task.file);
+            long loaded = System.nanoTime();
+            TspSeqGrowthByNearest construction = new TspSeqGrowthByNearest(dij);
+            construction.solve();
+            long constructed = System.nanoTime();
+            SaForTsp annealing = new SaForTsp(new ChainInversion(construction.getSolutionRoute(), 5, dij));
+            annealing.setTimeLimit(task.seconds);
+            annealing.solve();
+            long annealed = System.nanoTime();
+            int[] route = annealing.getBestRoute();
+            StringBuilder line = new StringBuilder(32 + 6 * route.length);
+            line.append(task.file.getPath()).append('\t').append(annealing.getBestRouteLength())
+                    .append(String.format(Locale.ROOT, "\t%.1f\t%.1f\t%.1f\t", (loaded - start) / 1e6,
+                            (constructed - loaded) / 1e6, (annealed - constructed) / 1e6));
+            for (int i = 0; i < route.length; i++) {
+                if (i > 0)
+                    line.append(' ');
+                line.append(route[i]);
+            }
+            out.println(line);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            out.println(task.file.getPath() + "\tERROR\t" + e);
+            return false;
+        }
+    }
+}
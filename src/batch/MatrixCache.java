@@ -0,0 +1,222 @@
+package batch;
+
+import contracts.IDistanceMatrix;
+import matrix.DistanceMatrixFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Cache of loaded distance matrices shared by concurrently solved instances. Matrices are keyed by SHA-256 hash of
+ * content of their files, so the same instance is loaded once even if it is listed under different names. Cache is
+ * bounded by sum of <code>getStorageBytes()</code> of cached matrices and the least recently used matrices are evicted
+ * first. When several threads request the same not cached matrix, only one of them loads it and the others wait.
+ * <p>
+ * Hash of file is remembered with its canonical path, size and time of last modification, so file is read again only
+ * when it was changed since it was hashed.
+ */
+public final class MatrixCache {
+    private static final int HASH_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_HASHED_FILES = 1024; // count of files, whose hashes are remembered
+
+    private final long capacityBytes;
+    private final LinkedHashMap<String, Entry> matrices = new LinkedHashMap<>(16, 0.75f, true); // LRU order
+    private final Map<String, CompletableFuture<IDistanceMatrix>> loading = new HashMap<>();
+    private final Map<String, FileHash> hashes = new LinkedHashMap<>(16, 0.75f, true) { // by canonical path, LRU order
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileHash> eldest) {
+            return this.size() > MAX_HASHED_FILES;
+        }
+    };
+    private long usedBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacityBytes upper bound of sum of storage bytes of cached matrices
+     */
+    public MatrixCache(long capacityBytes) {
+        if (capacityBytes < 0)
+            throw new IllegalArgumentException("Cache capacity must not be negative");
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * @return matrix loaded from <code>file</code> by {@link DistanceMatrixFile#load(File)}, or cached matrix loaded
+     * from file with the same content.
+     */
+    public IDistanceMatrix get(File file) throws IOException {
+        String key = this.hash(file);
+        CompletableFuture<IDistanceMatrix> pending;
+        synchronized (this) {
+            Entry entry = this.matrices.get(key);
+            if (entry != null) {
+                this.hits++;
+                return entry.matrix;
+            }
+            pending = this.loading.get(key);
+            if (pending != null) {
+                this.hits++; // being loaded by other thread
+            } else {
+                this.misses++;
+                this.loading.put(key, new CompletableFuture<>());
+            }
+        }
+        if (pending != null)
+            return await(pending);
+        return this.load(key, file);
+    }
+
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return sum of storage bytes of cached matrices at the time they were cached.
+     */
+    public synchronized long getUsedBytes() {
+        return this.usedBytes;
+    }
+
+    /**
+     * Loads matrix requested first by this thread, caches it and passes it to threads waiting for it.
+     */
+    private IDistanceMatrix load(String key, File file) throws IOException {
+        IDistanceMatrix matrix;
+        try {
+            matrix = DistanceMatrixFile.load(file);
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture<IDistanceMatrix> pending;
+            synchronized (this) {
+                pending = this.loading.remove(key);
+            }
+            pending.completeExceptionally(e);
+            throw e;
+        }
+        CompletableFuture<IDistanceMatrix> pending;
+        synchronized (this) {
+            pending = this.loading.remove(key);
+            this.put(key, matrix);
+        }
+        pending.complete(matrix);
+        return matrix;
+    }
+
+    /**
+     * Caches <code>matrix</code> and evicts the least recently used matrices to fit in capacity. Matrix larger than
+     * the whole capacity is not cached. Matrix is charged by its storage bytes at this time and the same count of bytes
+     * is released at its eviction, even if its storage (e.g. row cache) changes meanwhile.
+     */
+    private void put(String key, IDistanceMatrix matrix) {
+        long bytes = matrix.getStorageBytes();
+        if (bytes > this.capacityBytes)
+            return;
+        Iterator<Entry> eldest = this.matrices.values().iterator();
+        while (this.usedBytes + bytes > this.capacityBytes) {
+            this.usedBytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+        this.matrices.put(key, new Entry(matrix, bytes));
+        this.usedBytes += bytes;
+    }
+
+    /**
+     * @return hash of content of <code>file</code>, which is computed again only if file was changed since the last
+     * request.
+     */
+    private String hash(File file) throws IOException {
+        String path = file.getCanonicalPath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        synchronized (this) {
+            FileHash known = this.hashes.get(path);
+            if (known != null && known.length == length && known.lastModified == lastModified)
+                return known.hash;
+        }
+        String hash = contentHash(file);
+        synchronized (this) {
+            this.hashes.put(path, new FileHash(length, lastModified, hash));
+        }
+        return hash;
+    }
+
+    private static IDistanceMatrix await(CompletableFuture<IDistanceMatrix> pending) throws IOException {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Cached matrix with count of bytes charged to capacity of cache.
+     */
+    private static final class Entry {
+        private final IDistanceMatrix matrix;
+        private final long bytes;
+
+        private Entry(IDistanceMatrix matrix, long bytes) {
+            this.matrix = matrix;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Hash of content of file, which had given size and time of last modification when it was hashed.
+     */
+    private static final class FileHash {
+        private final long length;
+        private final long lastModified;
+        private final String hash;
+
+        private FileHash(long length, long lastModified, String hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * @return hexadecimal SHA-256 hash of content of <code>file</code>.
+     */
+    static String contentHash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // every Java platform supports it
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
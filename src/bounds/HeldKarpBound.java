@@ -0,0 +1,240 @@
+package bounds;
+
+import contracts.IDistanceMatrix;
+import contracts.ILowerBound;
+import matrix.PenalizedDistanceMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Held-Karp lower bound of length of optimal route, computed as minimum 1-tree with node penalties optimised by
+ * subgradient method. 1-tree consists of minimum spanning tree of nodes other than node 0 and two shortest edges
+ * from node 0. Every route is 1-tree, so length of minimum 1-tree with distances increased by penalties of both end
+ * nodes, minus twice the sum of penalties, is lower bound for each penalties. Subgradient method moves penalties of
+ * nodes with degree other than 2 in order to increase the bound.
+ * <p>
+ * Edges are undirected, weight of edge is the shorter of distances in both directions, so the bound is valid for
+ * asymmetric matrices too (but it's weaker there). Each iteration takes O(n<sup>2</sup>) time and O(n) memory.
+ * <p>
+ * Computation is meant to run in parallel with meta heuristic - the best bound found so far is published after each
+ * improvement and computation can be stopped from other thread.
+ */
+public class HeldKarpBound implements ILowerBound {
+    private static final int PATIENCE = 20;          // iterations without improvement after which step is halved
+    private static final double INITIAL_LAMBDA = 2.0; // initial step size factor
+    private static final double MIN_LAMBDA = 1e-4;   // computation stops when step size factor drops below it
+
+    private final IDistanceMatrix dij;
+    private final int M;              // nodes count
+    private final int upperBound;     // length of known route, it drives step size
+    private int maxIterations = 1000;
+    private final double[] pi;        // current penalties of nodes
+    private final double[] bestPi;    // penalties giving the best bound
+    private final int[] degree;       // degrees of nodes in the last 1-tree
+    private final double[] key;       // Prim's algorithm - weight of the shortest edge to the tree
+    private final int[] parent;       // Prim's algorithm - tree node at the other end of that edge
+    private final boolean[] inTree;   // Prim's algorithm - node is already in the tree
+    private double bestValue = Double.NEGATIVE_INFINITY; // the best bound before rounding
+    private int iterations;
+    private long solvingNanos;
+    private volatile int lowerBound;
+    private volatile boolean optimal; // the best 1-tree is a route, so the bound is length of optimal route
+    private volatile boolean stopped;
+
+    /**
+     * @param dij distances between each pair of nodes
+     * @param upperBound length of any route (e.g. found by construction heuristic), it's used to estimate step size
+     */
+    public HeldKarpBound(IDistanceMatrix dij, int upperBound) {
+        if (dij == null)
+            throw new NullPointerException("Distance matrix not provided");
+        if (upperBound < 0)
+            throw new IllegalArgumentException("Length of route must not be negative");
+        this.dij = dij;
+        this.M = dij.getNodesCount();
+        this.upperBound = upperBound;
+        this.pi = new double[this.M];
+        this.bestPi = new double[this.M];
+        this.degree = new int[this.M];
+        this.key = new double[this.M];
+        this.parent = new int[this.M];
+        this.inTree = new boolean[this.M];
+    }
+
+    /**
+     * @param iterations maximal count of subgradient iterations (1000 by default)
+     */
+    public void setMaxIterations(int iterations) {
+        if (iterations < 1)
+            throw new IllegalArgumentException("At least one iteration is required");
+        this.maxIterations = iterations;
+    }
+
+    /**
+     * Optimises penalties until the bound stops improving, the bound meets the upper bound, count of iterations is
+     * exhausted or computation is stopped.
+     */
+    public void solve() {
+        long start = System.nanoTime();
+        if (this.M < 3) { // 1-tree needs node 0 and at least two other nodes
+            this.solvingNanos = System.nanoTime() - start;
+            return;
+        }
+        double lambda = INITIAL_LAMBDA;
+        int sinceImprovement = 0;
+        for (this.iterations = 0; this.iterations < this.maxIterations && !this.stopped; this.iterations++) {
+            double value = this.minimumOneTree();
+            long norm = 0; // squared norm of subgradient
+            for (int i = 0; i < this.M; i++) {
+                norm += (this.degree[i] - 2) * (this.degree[i] - 2);
+            }
+            if (value > this.bestValue) {
+                this.bestValue = value;
+                System.arraycopy(this.pi, 0, this.bestPi, 0, this.M);
+                this.publish(value);
+                sinceImprovement = 0;
+            } else if (++sinceImprovement == PATIENCE) {
+                lambda /= 2;
+                sinceImprovement = 0;
+            }
+            if (norm == 0) { // 1-tree is a route, which is not longer than the bound
+                this.optimal = true;
+                break;
+            }
+            if (this.lowerBound >= this.upperBound || lambda < MIN_LAMBDA)
+                break;
+            double step = lambda * Math.max(this.upperBound - value, 1) / norm;
+            for (int i = 0; i < this.M; i++) {
+                this.pi[i] += step * (this.degree[i] - 2);
+            }
+        }
+        this.solvingNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Stops computation running in other thread, the best bound found so far stays available.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    @Override
+    public int getLowerBound() {
+        return this.lowerBound;
+    }
+
+    /**
+     * @return <code>true</code> if minimum 1-tree was a route, so the bound is length of optimal route (if matrix is
+     * symmetric).
+     */
+    public boolean isOptimal() {
+        return this.optimal;
+    }
+
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * @return penalties of nodes, which gave the best bound.
+     */
+    public double[] getPenalties() {
+        return this.bestPi.clone();
+    }
+
+    /**
+     * @return view of distance matrix with the best penalties rounded to integers, its nearest nodes are better
+     * candidates for edges of optimal route than nearest nodes by plain distance.
+     */
+    public IDistanceMatrix getPenalizedMatrix() {
+        int[] penalties = new int[this.M];
+        for (int i = 0; i < this.M; i++) {
+            penalties[i] = (int) Math.round(this.bestPi[i]);
+        }
+        return new PenalizedDistanceMatrix(this.dij, penalties);
+    }
+
+    public void printSolution() {
+        System.out.println(" - - -\nHeld-Karp lower bound:");
+        System.out.println("  * lower bound: " + this.lowerBound + (this.optimal ? " (optimal)" : ""));
+        System.out.printf("  * iterations: %d in %.1f ms%n", this.iterations, this.solvingNanos / 1e6);
+    }
+
+    /**
+     * Publishes bound <code>value</code> rounded up to integer, since lengths of routes are integers.
+     */
+    private void publish(double value) {
+        int bound = (int) Math.ceil(value - 1e-9 * Math.abs(value)); // tolerate rounding errors of penalties
+        if (bound > this.lowerBound)
+            this.lowerBound = bound;
+    }
+
+    /**
+     * Finds minimum 1-tree with current penalties by Prim's algorithm and stores degrees of its nodes.
+     * @return length of 1-tree minus twice the sum of penalties
+     */
+    private double minimumOneTree() {
+        Arrays.fill(this.degree, 0);
+        Arrays.fill(this.inTree, false);
+        double length = 0;
+        // minimum spanning tree of nodes 1..M-1 grown from node 1
+        this.inTree[1] = true;
+        for (int j = 2; j < this.M; j++) {
+            this.key[j] = this.weight(1, j);
+            this.parent[j] = 1;
+        }
+        for (int added = 2; added < this.M; added++) {
+            int next = -1;
+            for (int j = 2; j < this.M; j++) {
+                if (!this.inTree[j] && (next < 0 || this.key[j] < this.key[next]))
+                    next = j;
+            }
+            this.inTree[next] = true;
+            length += this.key[next];
+            this.degree[next]++;
+            this.degree[this.parent[next]]++;
+            for (int j = 2; j < this.M; j++) {
+                if (!this.inTree[j]) {
+                    double w = this.weight(next, j);
+                    if (w < this.key[j]) {
+                        this.key[j] = w;
+                        this.parent[j] = next;
+                    }
+                }
+            }
+        }
+        // two shortest edges from node 0
+        int first = -1;
+        int second = -1;
+        double firstWeight = Double.POSITIVE_INFINITY;
+        double secondWeight = Double.POSITIVE_INFINITY;
+        for (int j = 1; j < this.M; j++) {
+            double w = this.weight(0, j);
+            if (w < firstWeight) {
+                second = first;
+                secondWeight = firstWeight;
+                first = j;
+                firstWeight = w;
+            } else if (w < secondWeight) {
+                second = j;
+                secondWeight = w;
+            }
+        }
+        length += firstWeight + secondWeight;
+        this.degree[0] = 2;
+        this.degree[first]++;
+        this.degree[second]++;
+        double penalties = 0;
+        for (int i = 0; i < this.M; i++) {
+            penalties += this.pi[i];
+        }
+        return length - 2 * penalties;
+    }
+
+    /**
+     * @return penalized weight of undirected edge between nodes <code>i</code> and <code>j</code>.
+     */
+    private double weight(int i, int j) {
+        return Math.min(this.dij.getDistance(i, j), this.dij.getDistance(j, i)) + this.pi[i] + this.pi[j];
+    }
+}
@@ -0,0 +1,251 @@
+package checkpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * File with the latest checkpoint of long computation, written asynchronously so computing thread only serializes its
+ * state to memory. Checkpoint is serialized to one of two buffers, while writer thread may be writing the other one
+ * (double buffering). When writer is busy and newer checkpoint is committed, it replaces the waiting one, so computing
+ * thread never waits for disk.
+ * <p>
+ * Content is written to temporary file next to checkpoint file, followed by CRC-32 of content, synced to disk and
+ * atomically renamed over checkpoint file - file always contains complete checkpoint, even if process is killed while
+ * writing.
+ */
+public final class CheckpointFile {
+    private static final ObjectInputFilter RANDOM_ONLY = ObjectInputFilter.Config.createFilter("java.util.Random;!*");
+
+    private final File file;
+    private final File temporary;        // file being written, it's renamed to checkpoint file when complete
+    private final Buffer[] buffers = {new Buffer(), new Buffer()};
+    private final Thread writer;
+    private Buffer filling;              // buffer being filled by computing thread
+    private Buffer ready;                // committed buffer waiting for writer, guarded by this
+    private Buffer writing;              // buffer being written, guarded by this
+    private boolean closed;              // guarded by this
+    private volatile int written;        // count of completely written checkpoints
+    private volatile IOException failure; // the last failure of writing, null if the last checkpoint was written
+
+    /**
+     * Starts daemon writer thread.
+     * @param file file where checkpoints are written, it's replaced by each of them
+     */
+    public CheckpointFile(File file) {
+        if (file == null)
+            throw new NullPointerException("Checkpoint file not provided");
+        this.file = file;
+        this.temporary = new File(file.getPath() + ".tmp");
+        this.writer = new Thread(this::writeCommitted, "checkpoint-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Starts new checkpoint in buffer, which is not being written.
+     * @return stream, to which the whole content of checkpoint is written before calling <code>commit()</code>
+     */
+    public DataOutputStream begin() {
+        synchronized (this) {
+            if (this.closed)
+                throw new IllegalStateException("Checkpoint file is closed");
+            this.filling = (this.writing == this.buffers[0]) ? this.buffers[1] : this.buffers[0];
+            if (this.ready == this.filling)
+                this.ready = null; // waiting checkpoint is replaced by newer one
+        }
+        this.filling.reset();
+        return this.filling.data;
+    }
+
+    /**
+     * Passes checkpoint started by the last <code>begin()</code> to writer thread.
+     */
+    public void commit() {
+        synchronized (this) {
+            if (this.filling == null)
+                throw new IllegalStateException("Checkpoint was not started");
+            this.ready = this.filling;
+            this.filling = null;
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until committed checkpoint is written and stops writer thread.
+     */
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            this.closed = true;
+            this.notifyAll();
+        }
+        this.writer.join();
+    }
+
+    /**
+     * @return count of checkpoints written to file.
+     */
+    public int getWrittenCount() {
+        return this.written;
+    }
+
+    /**
+     * @return failure of writing of the last checkpoint, <code>null</code> if it was written or none was committed.
+     */
+    public IOException getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Reads checkpoint file and verifies its checksum.
+     * @return stream of content of checkpoint
+     * @throws IOException if file can't be read or it's corrupted
+     */
+    public static DataInputStream read(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length < Long.BYTES)
+            throw new IOException("Checkpoint " + file + " is truncated");
+        int size = bytes.length - Long.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, size);
+        if (ByteBuffer.wrap(bytes, size, Long.BYTES).getLong() != crc.getValue())
+            throw new IOException("Checkpoint " + file + " is corrupted");
+        return new DataInputStream(new ByteArrayInputStream(bytes, 0, size));
+    }
+
+    /**
+     * Writes exact state of random numbers generator, so generator read by <code>readRandom</code> continues with the
+     * same sequence of numbers.
+     */
+    public static void writeRandom(Random rand, DataOutput out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(rand);
+        }
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    /**
+     * @return random numbers generator written by <code>writeRandom</code>.
+     */
+    public static Random readRandom(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || size > 4096)
+            throw new IOException("Invalid size of state of random numbers generator");
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            objects.setObjectInputFilter(RANDOM_ONLY); // nothing else may be instantiated from file
+            Object rand = objects.readObject();
+            if (rand == null || rand.getClass() != Random.class)
+                throw new IOException("Invalid state of random numbers generator");
+            return (Random) rand;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Invalid state of random numbers generator", e);
+        }
+    }
+
+    /**
+     * Writes path of Traveling Salesman preceded by its length.
+     */
+    public static void writeRoute(int[] route, DataOutput out) throws IOException {
+        out.writeInt(route.length);
+        for (int node : route) {
+            out.writeInt(node);
+        }
+    }
+
+    /**
+     * Reads path written by <code>writeRoute</code> to <code>route</code> and verifies, that it's valid path of
+     * Traveling Salesman of the same count of nodes.
+     */
+    public static void readRoute(DataInput in, int[] route) throws IOException {
+        final int n = route.length - 1;
+        if (in.readInt() != route.length)
+            throw new IOException("Mismatch between checkpoint route nodes count and current route nodes count");
+        boolean[] visited = new boolean[n];
+        for (int i = 0; i <= n; i++) {
+            route[i] = in.readInt();
+            if (route[i] < 0 || route[i] >= n || (i < n && visited[route[i]]))
+                throw new IOException("Checkpoint route is not valid path of Traveling Salesman");
+            visited[route[i]] = true;
+        }
+        if (route[0] != route[n])
+            throw new IOException("Checkpoint route is not closed");
+    }
+
+    /**
+     * Loop of writer thread, it ends when file is closed and the last committed checkpoint is written.
+     */
+    private void writeCommitted() {
+        while (true) {
+            Buffer buffer;
+            synchronized (this) {
+                while (this.ready == null && !this.closed) {
+                    try {
+                        this.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (this.ready == null)
+                    return;
+                buffer = this.ready;
+                this.ready = null;
+                this.writing = buffer;
+            }
+            try {
+                this.write(buffer);
+                this.written++;
+                this.failure = null;
+            } catch (IOException e) {
+                this.failure = e;
+            }
+            synchronized (this) {
+                this.writing = null;
+            }
+        }
+    }
+
+    private void write(Buffer buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.size());
+        try (FileOutputStream out = new FileOutputStream(this.temporary)) {
+            out.write(buffer.array(), 0, buffer.size());
+            out.write(ByteBuffer.allocate(Long.BYTES).putLong(crc.getValue()).array());
+            out.getFD().sync();
+        }
+        Files.move(this.temporary.toPath(), this.file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Growing byte array, which is reused by all checkpoints serialized to it.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        private final DataOutputStream data = new DataOutputStream(this);
+
+        private Buffer() {
+            super(1 << 16);
+        }
+
+        private byte[] array() {
+            return this.buf;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package contracts;
+
+/**
+ * Observer of progress of Simulated Annealing. Methods are called from the annealing thread, so implementations
+ * shared by more annealing chains must be thread-safe and all of them should return quickly.
+ */
+public interface IAnnealingListener {
+
+    /**
+     * Called periodically, after each sampling interval of examined transits and at the end of solving. Counts are
+     * increments since the previous sample of the same annealing.
+     *
+     * @param elapsedNanos time from the start of solving
+     * @param transits count of examined transits (solutions from surrounding)
+     * @param acceptedImproving count of accepted transits, which didn't make current route longer
+     * @param acceptedWorsening count of accepted transits, which made current route longer
+     * @param currentLength length of current route
+     * @param bestLength length of the best found route
+     * @param temperature current temperature
+     */
+    public void onSample(long elapsedNanos, long transits, long acceptedImproving, long acceptedWorsening,
+                         int currentLength, int bestLength, int temperature);
+
+    /**
+     * Called whenever the best found route is improved.
+     *
+     * @param elapsedNanos time from the start of solving
+     * @param bestLength length of the new best found route
+     */
+    public void onBestImproved(long elapsedNanos, int bestLength);
+
+    /**
+     * Called when annealing leaves temperature level, either because temperature is lowered or cycle of annealing
+     * ends.
+     *
+     * @param temperature left temperature
+     * @param durationNanos time spent at the temperature
+     * @param transits count of transits examined at the temperature
+     */
+    public void onTemperatureLevel(int temperature, long durationNanos, long transits);
+}
@@ -0,0 +1,30 @@
+package contracts;
+
+/**
+ * Primary heuristic, which can also generate modifications of current route in batches, so their route lengths are
+ * computed in one tight loop.
+ */
+public interface IBatchChainOperation extends ITspChainOperation {
+
+    /**
+     * @return maximal count of modifications, which can be generated by one call of <code>nextModifications</code>.
+     */
+    public int getMaxBatchSize();
+
+    /**
+     * Generates batch of <code>count</code> modifications of current route at once. Parameters of all of them are saved
+     * within this instance until next batch is generated, so one of them can be applied afterwards by calling
+     * <code>applyModification(int)</code>.
+     *
+     * @param newLengths array, where i-th element is set to new route length, if i-th modification was applied
+     * @param count count of generated modifications, at most <code>getMaxBatchSize()</code>
+     */
+    public void nextModifications(int[] newLengths, int count);
+
+    /**
+     * Applies modification from the last batch generated by <code>nextModifications</code> method of this class.
+     *
+     * @param batchIndex index of modification within the batch
+     */
+    public void applyModification(int batchIndex);
+}
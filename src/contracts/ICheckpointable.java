@@ -0,0 +1,34 @@
+package contracts;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Primary heuristic, whose state can be written to checkpoint of annealing and restored after restart of process.
+ */
+public interface ICheckpointable {
+
+    /**
+     * @return <code>true</code> if state can be written and restored, e.g. composite of operations supports checkpoints
+     * only if all of its operations do.
+     */
+    public default boolean supportsCheckpoints() {
+        return true;
+    }
+
+    /**
+     * Writes state of this operation (current route, its length and state of random choice of modifications) to
+     * checkpoint. It's called only between modifications, when no generated modification waits for being applied.
+     * @param out stream of checkpoint
+     */
+    public void writeState(DataOutput out) throws IOException;
+
+    /**
+     * Restores state written by <code>writeState</code>, so that operation continues with the same modifications as
+     * operation, whose state was written. Operation must be created with the same distance matrix and parameters.
+     * @param in stream of checkpoint
+     * @throws IOException if state can't be read or it doesn't match this operation
+     */
+    public void readState(DataInput in) throws IOException;
+}
@@ -0,0 +1,25 @@
+package contracts;
+
+/**
+ * Read-only matrix of distances between each pair of nodes of Traveling Salesman Problem. Nodes are identified by
+ * their index from interval &lt;0, nodesCount).
+ */
+public interface IDistanceMatrix {
+
+    /**
+     * @return count of nodes of network, which is the count of rows (and columns) of the matrix.
+     */
+    public int getNodesCount();
+
+    /**
+     * @param from ID of node where the transit begins
+     * @param to ID of node where the transit ends
+     * @return distance of transit from node <code>from</code> to node <code>to</code>.
+     */
+    public int getDistance(int from, int to);
+
+    /**
+     * @return approximate count of bytes occupied by stored distances.
+     */
+    public long getStorageBytes();
+}
@@ -0,0 +1,13 @@
+package contracts;
+
+/**
+ * Source of lower bound of length of optimal route of Traveling Salesman, which may be improved while it's read (e.g.
+ * by computation running in parallel with meta heuristic).
+ */
+public interface ILowerBound {
+
+    /**
+     * @return the best lower bound known so far, 0 if none is known yet. It's safe to call it from any thread.
+     */
+    public int getLowerBound();
+}
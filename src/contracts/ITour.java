@@ -0,0 +1,45 @@
+package contracts;
+
+/**
+ * Route of Traveling Salesman kept as a cycle of nodes, which supports queries and reversals of its parts needed by
+ * move operators (e.g. 2-opt). Orientation of the cycle is not significant - reversal of a path may be implemented
+ * by reversal of the rest of the cycle, which gives the same cycle traversed in opposite direction.
+ */
+public interface ITour {
+
+    public int getNodesCount();
+
+    /**
+     * @return node following <code>node</code> in current orientation of the cycle.
+     */
+    public int next(int node);
+
+    /**
+     * @return node preceding <code>node</code> in current orientation of the cycle.
+     */
+    public int prev(int node);
+
+    /**
+     * @return <code>true</code> if node <code>b</code> lies on path going from node <code>a</code> forward to node
+     * <code>c</code> (both inclusive).
+     */
+    public boolean between(int a, int b, int c);
+
+    /**
+     * Reverses path going from node <code>from</code> forward to node <code>to</code>. E.g. 2-opt move replacing edges
+     * <code>(a, next(a))</code> and <code>(c, next(c))</code> by edges <code>(a, c)</code> and
+     * <code>(next(a), next(c))</code> is <code>reverse(next(a), c)</code>.
+     */
+    public void reverse(int from, int to);
+
+    /**
+     * @return path of Traveling Salesman, first and last node is the same node. Returned array may be internal
+     * storage of tour, so it must not be modified and it's valid only until the tour is changed.
+     */
+    public int[] getRoute();
+
+    /**
+     * Replaces the cycle by <code>route</code>, whose first and last node is the same node.
+     */
+    public void setRoute(int[] route);
+}
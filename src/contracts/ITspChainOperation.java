@@ -25,6 +25,12 @@ public interface ITspChainOperation {
      */
     public void applyModification();
 
+    /**
+     * Replaces current route by copy of <code>path</code> and resets set of solutions of current surrounding.
+     * @param path valid path of Traveling Salesman with the same count of nodes as current route
+     */
+    public void resetRoute(int[] path);
+
     public int[] getSolutionRoute();
 
     public int getRouteLength();
@@ -0,0 +1,14 @@
+package contracts;
+
+/**
+ * Creates independent instances of primary heuristic, e.g. one for each chain of parallel meta heuristic.
+ */
+public interface ITspChainOperationFactory {
+
+    /**
+     * @param path valid path of Traveling Salesman, which becomes the current route of created instance
+     * @param seed seed of random numbers generator of created instance
+     * @return new instance of primary heuristic working on <code>path</code>
+     */
+    public ITspChainOperation create(int[] path, long seed);
+}
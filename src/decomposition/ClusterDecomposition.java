@@ -0,0 +1,338 @@
+package decomposition;
+
+import contracts.IDistanceMatrix;
+import heuristics.ChainInversion;
+import heuristics.TspSeqGrowthByNearest;
+import matrix.CandidateLists;
+import matrix.SubDistanceMatrix;
+import matrix.WindowDistanceMatrix;
+import metaheuristics.IteratedLinKernighan;
+import metaheuristics.SaForTsp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Solver of large instances, which splits nodes into clusters by {@link KMedoids}, solves each cluster separately and
+ * joins their routes. Cluster is solved on {@link SubDistanceMatrix} view by the same stack as whole instance of
+ * <code>TspSolver</code> - {@link TspSeqGrowthByNearest}, then {@link SaForTsp} with {@link ChainInversion}.
+ * Clusters are solved in parallel by work-stealing pool, the largest ones first.
+ * <p>
+ * Routes of clusters are joined in order given by route over medoids. Each route is opened at the edge, whose removal
+ * and connection to the previous cluster costs the least. Finally, joined route is repaired by
+ * {@link IteratedLinKernighan} local search on disjoint windows of route positions, each of them on
+ * {@link WindowDistanceMatrix} view with its own candidate lists, so windows are repaired in parallel by the same pool:
+ * <ol>
+ *     <li>windows from the middle of each cluster to the middle of the next one, so each of them contains one joint,</li>
+ *     <li>windows of route positions of each cluster, which repair the rest of clusters after the first round.</li>
+ * </ol>
+ */
+public class ClusterDecomposition {
+    public static final int DEFAULT_CLUSTER_SIZE = 500;
+    private static final int MIN_SOLVED_SIZE = 8;     // smaller clusters are joined in order of IDs without solving
+    private static final int MAX_ITERATIONS = 20;     // iterations of k-medoids
+    private static final int CANDIDATES = 10;         // nearest nodes of each node of window used by repair
+    private static final double KICKS_PER_NODE = 0.5; // kicks of local search of window per its node
+
+    private final IDistanceMatrix dij;
+    private final int M;                              // nodes count
+    private final long seed;
+    private int clusterSize = DEFAULT_CLUSTER_SIZE;   // average count of nodes of cluster
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private double clusterSeconds = 60;               // time limit of annealing of each cluster
+    private KMedoids clusters;
+    private int[] route;                              // best found route, null before solving
+    private int routeLength;
+    private int joinedLength;                         // length of joined routes before repair
+    private long clusteringNanos, solvingNanos, joiningNanos, repairNanos;
+    private int repairedWindows;                      // count of windows repaired by local search
+
+    /**
+     * @param dij distances between each pair of nodes
+     * @param seed seed from which seeds of clustering and of annealing of each cluster are derived
+     */
+    public ClusterDecomposition(IDistanceMatrix dij, long seed) {
+        if (dij == null)
+            throw new NullPointerException("Distance matrix not provided");
+        if (dij.getNodesCount() < MIN_SOLVED_SIZE)
+            throw new IllegalArgumentException("Decomposition requires at least " + MIN_SOLVED_SIZE + " nodes");
+        this.dij = dij;
+        this.M = dij.getNodesCount();
+        this.seed = seed;
+    }
+
+    /**
+     * @param size average count of nodes of cluster ({@value #DEFAULT_CLUSTER_SIZE} by default), count of clusters is
+     *             nodes count divided by it
+     */
+    public void setClusterSize(int size) {
+        if (size < MIN_SOLVED_SIZE)
+            throw new IllegalArgumentException("Cluster must have at least " + MIN_SOLVED_SIZE + " nodes");
+        this.clusterSize = size;
+    }
+
+    /**
+     * @param parallelism count of concurrently solved clusters and repaired windows (count of available processors by
+     *                    default)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("At least one worker is required");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param seconds time limit of annealing of each cluster, annealing stops sooner when its cycle doesn't improve
+     *                the route
+     */
+    public void setClusterTimeLimit(double seconds) {
+        if (seconds <= 0)
+            throw new IllegalArgumentException("Time limit must be positive");
+        this.clusterSeconds = seconds;
+    }
+
+    public void solve() {
+        long start = System.nanoTime();
+        SplittableRandom seeds = new SplittableRandom(this.seed);
+        int k = Math.max(1, Math.round((float) this.M / this.clusterSize));
+        this.clusters = KMedoids.cluster(this.dij, k, MAX_ITERATIONS, seeds.nextLong());
+        long clustered = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            int[][] routes = this.solveClusters(pool, seeds);
+            long solved = System.nanoTime();
+            int[] starts = this.join(routes);
+            long joined = System.nanoTime();
+            this.repair(pool, starts, seeds);
+            long repaired = System.nanoTime();
+            this.clusteringNanos = clustered - start;
+            this.solvingNanos = solved - clustered;
+            this.joiningNanos = joined - solved;
+            this.repairNanos = repaired - joined;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return copy of the best found path of Traveling Salesman, first and last node is the same node.
+     */
+    public int[] getBestRoute() {
+        return this.route.clone();
+    }
+
+    public int getBestRouteLength() {
+        return this.routeLength;
+    }
+
+    /**
+     * @return clusters of the last solving, <code>null</code> before solving.
+     */
+    public KMedoids getClusters() {
+        return this.clusters;
+    }
+
+    public void printSolution() {
+        System.out.print(" - - -\nTSP cluster decomposition (" + this.clusters.getK() + " clusters):\n  x = (");
+        for (int i = 0; i < (this.route.length - 1); i++) {
+            if (i != 0 && i % 22 == 0)
+                System.out.print("\n      ");
+            System.out.printf("%d, ", this.route[i]);
+        }
+        System.out.printf("%d)\n", this.route[0]);
+        System.out.println("  * length of best found route: " + this.routeLength + " (joined routes of clusters: "
+                + this.joinedLength + ")");
+        System.out.printf("  * clustering %.1f ms (%d iterations), clusters %.1f ms, joining %.1f ms, repair %.1f ms "
+                        + "(%d windows)%n", this.clusteringNanos / 1e6, this.clusters.getIterations(),
+                this.solvingNanos / 1e6, this.joiningNanos / 1e6, this.repairNanos / 1e6, this.repairedWindows);
+    }
+
+    /**
+     * Solves all clusters in parallel.
+     * @return closed route of each cluster in IDs of whole instance
+     */
+    private int[][] solveClusters(ForkJoinPool pool, SplittableRandom seeds) {
+        final int K = this.clusters.getK();
+        int[][] routes = new int[K][];
+        long[] clusterSeeds = new long[K];
+        for (int c = 0; c < K; c++) {
+            clusterSeeds[c] = seeds.nextLong();
+        }
+        Integer[] bySize = new Integer[K];
+        for (int c = 0; c < K; c++) {
+            bySize[c] = c;
+        }
+        Arrays.sort(bySize, (a, b) -> Integer.compare(this.clusters.getClusterSize(b),
+                this.clusters.getClusterSize(a)));
+        List<ForkJoinTask<?>> running = new ArrayList<>(K);
+        for (int c : bySize) {
+            running.add(pool.submit(() -> {
+                routes[c] = this.solveCluster(c, clusterSeeds[c]);
+            }));
+        }
+        for (ForkJoinTask<?> task : running) {
+            task.join();
+        }
+        return routes;
+    }
+
+    /**
+     * @return closed route of cluster <code>c</code> in IDs of whole instance.
+     */
+    private int[] solveCluster(int c, long seed) {
+        int[] members = this.clusters.getMembers(c);
+        if (members.length < MIN_SOLVED_SIZE) {
+            int[] route = new int[members.length + 1];
+            System.arraycopy(members, 0, route, 0, members.length);
+            route[members.length] = members[0];
+            return route;
+        }
+        SubDistanceMatrix sub = new SubDistanceMatrix(this.dij, members);
+        TspSeqGrowthByNearest construction = new TspSeqGrowthByNearest(sub);
+        construction.solve();
+        SaForTsp annealing = new SaForTsp(new ChainInversion(construction.getSolutionRoute(), 5, sub, seed), seed);
+        annealing.setTimeLimit(this.clusterSeconds);
+        annealing.solve();
+        return sub.toSourceRoute(annealing.getBestRoute());
+    }
+
+    /**
+     * Joins routes of clusters in order of route over medoids to {@link #route}.
+     * @return route position of the first node of each cluster in order of route, followed by nodes count
+     */
+    private int[] join(int[][] routes) {
+        final int K = routes.length;
+        int[] order = new int[K];
+        if (K >= 4) {
+            SubDistanceMatrix medoids = new SubDistanceMatrix(this.dij, this.clusters.getMedoids());
+            TspSeqGrowthByNearest construction = new TspSeqGrowthByNearest(medoids);
+            construction.solve();
+            System.arraycopy(construction.getSolutionRoute(), 0, order, 0, K);
+        } else {
+            for (int c = 0; c < K; c++) {
+                order[c] = c;
+            }
+        }
+        this.route = new int[this.M + 1];
+        int[] starts = new int[K + 1];
+        int k = 0;
+        int prevExit = (K > 1) ? this.clusters.getMedoid(order[K - 1]) : -1;
+        for (int idx = 0; idx < K; idx++) {
+            int[] r = routes[order[idx]];
+            int s = r.length - 1; // count of nodes of cluster
+            // cut edge (r[best], r[best + 1]), cluster is entered at its end given by direction
+            int best = 0;
+            boolean forward = true;
+            long bestCost = Long.MAX_VALUE;
+            for (int i = 0; i < s && prevExit >= 0; i++) {
+                int u = r[i];
+                int v = r[i + 1];
+                long cut = (s > 1) ? this.dij.getDistance(u, v) : 0;
+                long costForward = this.dij.getDistance(prevExit, v) - cut;   // enter v, leave u
+                long costBackward = this.dij.getDistance(prevExit, u) - cut;  // enter u, leave v
+                if (costForward < bestCost) {
+                    bestCost = costForward;
+                    best = i;
+                    forward = true;
+                }
+                if (costBackward < bestCost) {
+                    bestCost = costBackward;
+                    best = i;
+                    forward = false;
+                }
+            }
+            starts[idx] = k;
+            for (int j = 0; j < s; j++) {
+                this.route[k++] = forward ? r[(best + 1 + j) % s] : r[((best - j) % s + s) % s];
+            }
+            prevExit = this.route[k - 1];
+        }
+        this.route[this.M] = this.route[0];
+        this.routeLength = 0;
+        for (int i = 0; i < this.M; i++) {
+            this.routeLength += this.dij.getDistance(this.route[i], this.route[i + 1]);
+        }
+        starts[K] = this.M;
+        this.joinedLength = this.routeLength;
+        return starts;
+    }
+
+    /**
+     * Repairs joined route by two rounds of local search on disjoint windows, windows of each round run in parallel.
+     * @param starts route positions of clusters returned by <code>join</code>
+     */
+    private void repair(ForkJoinPool pool, int[] starts, SplittableRandom seeds) {
+        final int K = starts.length - 1;
+        this.repairedWindows = 0;
+        int[] middles = new int[K];
+        for (int idx = 0; idx < K; idx++) {
+            middles[idx] = (starts[idx] + starts[idx + 1]) / 2;
+        }
+        List<int[]> joints = new ArrayList<>(K);    // windows of the first round as start and size
+        for (int idx = 0; idx < K; idx++) {
+            int end = (idx + 1 < K) ? middles[idx + 1] : middles[0] + this.M;
+            joints.add(new int[] {middles[idx], end - middles[idx]});
+        }
+        this.repairWindows(pool, joints, seeds);
+        if (K > 1) {
+            List<int[]> interiors = new ArrayList<>(K); // windows of the second round
+            for (int idx = 0; idx < K; idx++) {
+                interiors.add(new int[] {starts[idx], starts[idx + 1] - starts[idx]});
+            }
+            this.repairWindows(pool, interiors, seeds);
+        }
+        this.route[this.M] = this.route[0];
+        this.routeLength = 0;
+        for (int i = 0; i < this.M; i++) {
+            this.routeLength += this.dij.getDistance(this.route[i], this.route[i + 1]);
+        }
+    }
+
+    /**
+     * Repairs disjoint <code>windows</code> of {@link #route} in parallel.
+     */
+    private void repairWindows(ForkJoinPool pool, List<int[]> windows, SplittableRandom seeds) {
+        List<ForkJoinTask<Boolean>> running = new ArrayList<>(windows.size());
+        for (int[] window : windows) {
+            long windowSeed = seeds.nextLong();
+            running.add(pool.submit(() -> this.repairWindow(window[0], window[1], windowSeed)));
+        }
+        for (ForkJoinTask<Boolean> task : running) {
+            if (task.join())
+                this.repairedWindows++;
+        }
+    }
+
+    /**
+     * Optimises path of <code>size</code> nodes of {@link #route} from position <code>start</code> by iterated local
+     * search, end nodes of path stay in place.
+     * @return <code>true</code> if window was repaired, <code>false</code> if it was too short or too long
+     */
+    private boolean repairWindow(int start, int size, long seed) {
+        if (size < MIN_SOLVED_SIZE)
+            return false;
+        int[] nodes = new int[size];
+        long length = 0;
+        for (int k = 0; k < size; k++) {
+            nodes[k] = this.route[(start + k) % this.M];
+            if (k > 0)
+                length += this.dij.getDistance(nodes[k - 1], nodes[k]);
+        }
+        if (length >= Integer.MAX_VALUE / 4)
+            return false; // penalty of dummy node wouldn't fit to route length
+        WindowDistanceMatrix window = new WindowDistanceMatrix(this.dij, nodes);
+        IteratedLinKernighan search = new IteratedLinKernighan(window.getPathRoute(), window,
+                CandidateLists.build(window, CANDIDATES), seed);
+        search.setMaxKicks((long) (KICKS_PER_NODE * size));
+        search.solve();
+        int[] path = window.toSourcePath(search.getBestRoute());
+        for (int k = 0; k < size; k++) {
+            this.route[(start + k) % this.M] = path[k];
+        }
+        return true;
+    }
+}
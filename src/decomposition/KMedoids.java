@@ -0,0 +1,211 @@
+package decomposition;
+
+import contracts.IDistanceMatrix;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Partition of nodes into clusters by k-medoids. Medoids are seeded by k-medoids++ (each next medoid is drawn with
+ * probability proportional to squared distance from the nearest chosen medoid), then assignment of nodes to the
+ * nearest medoid and choice of new medoid of each cluster (member with the least sum of distances to other members)
+ * alternate until medoids don't change.
+ * <p>
+ * Only distance matrix is used, so coordinates are not needed. Assignment takes O(n k) and update of medoids
+ * O(n<sup>2</sup> / k) time per iteration, both run in parallel. Distance from node to medoid is used for
+ * asymmetric matrices.
+ */
+public final class KMedoids {
+    private final int[] medoids;     // medoid of each cluster
+    private final int[] clusterOf;   // cluster of each node
+    private final int[][] members;   // nodes of each cluster ordered by ID, medoid included
+    private final int iterations;    // count of assignment iterations
+
+    private KMedoids(int[] medoids, int[] clusterOf, int[][] members, int iterations) {
+        this.medoids = medoids;
+        this.clusterOf = clusterOf;
+        this.members = members;
+        this.iterations = iterations;
+    }
+
+    /**
+     * @param dij distances between each pair of nodes
+     * @param k count of clusters, it's reduced to nodes count if greater
+     * @param maxIterations maximal count of iterations of assignment and update
+     * @param seed seed of random seeding of medoids
+     */
+    public static KMedoids cluster(IDistanceMatrix dij, int k, int maxIterations, long seed) {
+        if (dij == null)
+            throw new NullPointerException("Distance matrix not provided");
+        if (k < 1)
+            throw new IllegalArgumentException("At least one cluster is required");
+        if (maxIterations < 1)
+            throw new IllegalArgumentException("At least one iteration is required");
+        final int M = dij.getNodesCount();
+        final int K = Math.min(k, M);
+        int[] medoids = seedMedoids(dij, K, new SplittableRandom(seed));
+        int[] clusterOf = new int[M];
+        int[][] members = null;
+        int iteration = 0;
+        while (iteration < maxIterations) {
+            iteration++;
+            final int[] current = medoids;
+            IntStream.range(0, M).parallel().forEach(i -> clusterOf[i] = nearestMedoid(dij, current, i));
+            for (int c = 0; c < K; c++) { // medoid belongs to its cluster even if other medoid is equally near
+                clusterOf[medoids[c]] = c;
+            }
+            members = membersOf(clusterOf, K);
+            final int[][] clusters = members;
+            int[] updated = IntStream.range(0, K).parallel().map(c -> bestMedoid(dij, clusters[c])).toArray();
+            if (Arrays.equals(updated, medoids))
+                break;
+            medoids = updated;
+            members = null; // assignment doesn't correspond to updated medoids
+        }
+        if (members == null) { // iterations exhausted, assign nodes to the last medoids
+            final int[] current = medoids;
+            IntStream.range(0, M).parallel().forEach(i -> clusterOf[i] = nearestMedoid(dij, current, i));
+            for (int c = 0; c < K; c++) {
+                clusterOf[medoids[c]] = c;
+            }
+            members = membersOf(clusterOf, K);
+        }
+        return new KMedoids(medoids, clusterOf, members, iteration);
+    }
+
+    public int getK() {
+        return this.medoids.length;
+    }
+
+    public int getMedoid(int cluster) {
+        return this.medoids[cluster];
+    }
+
+    /**
+     * @return copy of medoids of all clusters.
+     */
+    public int[] getMedoids() {
+        return this.medoids.clone();
+    }
+
+    public int getCluster(int node) {
+        return this.clusterOf[node];
+    }
+
+    /**
+     * @return copy of nodes of <code>cluster</code> ordered by ID.
+     */
+    public int[] getMembers(int cluster) {
+        return this.members[cluster].clone();
+    }
+
+    public int getClusterSize(int cluster) {
+        return this.members[cluster].length;
+    }
+
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * k-medoids++ seeding.
+     */
+    private static int[] seedMedoids(IDistanceMatrix dij, int K, SplittableRandom rand) {
+        final int M = dij.getNodesCount();
+        int[] medoids = new int[K];
+        double[] weight = new double[M]; // squared distance to the nearest chosen medoid
+        medoids[0] = rand.nextInt(M);
+        double total = 0;
+        for (int i = 0; i < M; i++) {
+            double d = dij.getDistance(i, medoids[0]);
+            weight[i] = d * d;
+            total += weight[i];
+        }
+        for (int c = 1; c < K; c++) {
+            int next = -1;
+            if (total > 0) {
+                double r = rand.nextDouble() * total;
+                for (int i = 0; i < M && next < 0; i++) {
+                    r -= weight[i];
+                    if (r < 0 && weight[i] > 0)
+                        next = i;
+                }
+            }
+            if (next < 0) { // rounding errors or all remaining nodes coincide with medoids
+                for (int i = 0; i < M && next < 0; i++) {
+                    if (weight[i] > 0 || !contains(medoids, c, i))
+                        next = i;
+                }
+            }
+            medoids[c] = next;
+            total = 0;
+            for (int i = 0; i < M; i++) {
+                double d = dij.getDistance(i, next);
+                weight[i] = Math.min(weight[i], d * d);
+                total += weight[i];
+            }
+        }
+        return medoids;
+    }
+
+    private static boolean contains(int[] array, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (array[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return index of medoid nearest to <code>node</code>, ties are resolved by lower index.
+     */
+    private static int nearestMedoid(IDistanceMatrix dij, int[] medoids, int node) {
+        int best = 0;
+        int bestDistance = dij.getDistance(node, medoids[0]);
+        for (int c = 1; c < medoids.length; c++) {
+            int d = dij.getDistance(node, medoids[c]);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return member of cluster with the least sum of distances to other members, ties are resolved by lower ID.
+     */
+    private static int bestMedoid(IDistanceMatrix dij, int[] cluster) {
+        int best = cluster[0];
+        long bestSum = Long.MAX_VALUE;
+        for (int candidate : cluster) {
+            long sum = 0;
+            for (int j = 0; j < cluster.length && sum < bestSum; j++) { // stop when it can't be better
+                sum += dij.getDistance(cluster[j], candidate);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static int[][] membersOf(int[] clusterOf, int K) {
+        int[] sizes = new int[K];
+        for (int c : clusterOf) {
+            sizes[c]++;
+        }
+        int[][] members = new int[K][];
+        for (int c = 0; c < K; c++) {
+            members[c] = new int[sizes[c]];
+            sizes[c] = 0;
+        }
+        for (int i = 0; i < clusterOf.length; i++) {
+            int c = clusterOf[i];
+            members[c][sizes[c]++] = i;
+        }
+        return members;
+    }
+}
@@ -1,35 +1,54 @@
 package heuristics;
 
-import contracts.ITspChainOperation;
+import checkpoint.CheckpointFile;
+import contracts.IBatchChainOperation;
+import contracts.ICheckpointable;
+import contracts.IDistanceMatrix;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 
-public class ChainInversion implements ITspChainOperation {
+public class ChainInversion implements IBatchChainOperation, ICheckpointable {
+    private static final int MAX_BATCH_SIZE = 64;
     private final int chainLen;
     private final int[] route; // valid route of TSP
-    private final int[][] dij; // matrix of distances between each pair of nodes
-    private Random rand = new Random(15);
+    private final IDistanceMatrix dij; // matrix of distances between each pair of nodes
+    private Random rand;
     private int seqStart; // index of sequence beginning node in route variable
     private int savings = Integer.MIN_VALUE;
     private int distance = 0;
+    private final int[] batchStart = new int[MAX_BATCH_SIZE];   // seqStart of each modification of the last batch
+    private final int[] batchSavings = new int[MAX_BATCH_SIZE]; // savings of each modification of the last batch
 
     /**
      * @param path existing valid path of Traveling Salesman problem.
      * @param chainLength length of chain to be inverted
      */
-    public ChainInversion(int[] path, int chainLength, int[][] distanceMatrix) {
+    public ChainInversion(int[] path, int chainLength, IDistanceMatrix distanceMatrix) {
+        this(path, chainLength, distanceMatrix, 15);
+    }
+
+    /**
+     * @param path existing valid path of Traveling Salesman problem.
+     * @param chainLength length of chain to be inverted
+     * @param seed seed of random choice of inverted chains
+     */
+    public ChainInversion(int[] path, int chainLength, IDistanceMatrix distanceMatrix, long seed) {
         if (chainLength < 0)
             throw new IllegalArgumentException("Chain length cannot be negative");
         if (path == null)
             throw new NullPointerException("Path of TSP not provided");
         if (path.length < chainLength+2)
             throw new IllegalArgumentException("Inconsistent combination of path nodes count and chain length");
-        if (path.length - 1 != distanceMatrix.length)
+        if (path.length - 1 != distanceMatrix.getNodesCount())
             throw new IllegalArgumentException("Mismatch between path nodes count and matrix nodes count");
 
         this.chainLen = chainLength;
         this.route = path;
         this.dij = distanceMatrix;
+        this.rand = new Random(seed);
         this.seqStart = 0;
         this.calcRouteDistance();
     }
@@ -49,7 +68,7 @@ public class ChainInversion implements ITspChainOperation {
         int z = this.route[this.seqStart];      // sequence start node
         int k = this.route[seqEnd];             // sequence end node
         int n = this.route[seqEnd + 1];         // successor node of sequence end node
-        this.savings = (this.dij[p][z] + this.dij[k][n]) - (this.dij[p][k] + this.dij[z][n]);
+        this.savings = (this.dij.getDistance(p, z) + this.dij.getDistance(k, n)) - (this.dij.getDistance(p, k) + this.dij.getDistance(z, n));
         return this.distance - this.savings;
     }
 
@@ -68,6 +87,66 @@ public class ChainInversion implements ITspChainOperation {
         this.seqStart = 0; // reset set of solutions of new surrounding
     }
 
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public void nextModifications(int[] newLengths, int count) {
+        if (count > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("Batch size cannot exceed " + MAX_BATCH_SIZE);
+        final int bound = this.route.length - this.chainLen - 1;
+        final int last = this.chainLen - 1; // offset of sequence end node from sequence start node
+        for (int b = 0; b < count; b++) {
+            this.batchStart[b] = this.rand.nextInt(bound) + 1;
+        }
+        // savings of all modifications in one loop without any branches
+        for (int b = 0; b < count; b++) {
+            int start = this.batchStart[b];
+            int p = this.route[start - 1];      // predecessor node of sequence start node
+            int z = this.route[start];          // sequence start node
+            int k = this.route[start + last];   // sequence end node
+            int n = this.route[start + last + 1]; // successor node of sequence end node
+            this.batchSavings[b] = (this.dij.getDistance(p, z) + this.dij.getDistance(k, n))
+                    - (this.dij.getDistance(p, k) + this.dij.getDistance(z, n));
+        }
+        for (int b = 0; b < count; b++) {
+            newLengths[b] = this.distance - this.batchSavings[b];
+        }
+    }
+
+    @Override
+    public void applyModification(int batchIndex) {
+        this.seqStart = this.batchStart[batchIndex];
+        this.savings = this.batchSavings[batchIndex];
+        this.applyModification();
+    }
+
+    @Override
+    public void resetRoute(int[] path) {
+        if (path.length != this.route.length)
+            throw new IllegalArgumentException("Mismatch between path nodes count and current route nodes count");
+        System.arraycopy(path, 0, this.route, 0, path.length);
+        this.calcRouteDistance();
+        this.seqStart = 0;
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        CheckpointFile.writeRoute(this.route, out);
+        out.writeInt(this.distance);
+        CheckpointFile.writeRandom(this.rand, out);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        CheckpointFile.readRoute(in, this.route);
+        this.distance = in.readInt();
+        this.rand = CheckpointFile.readRandom(in);
+        this.seqStart = 0;
+    }
+
     @Override
     public int[] getSolutionRoute() {
         return this.route;
@@ -86,7 +165,7 @@ public class ChainInversion implements ITspChainOperation {
     private void calcRouteDistance() {
         this.distance = 0;
         for (int i = 0; i < (this.route.length - 1); i++) {
-            this.distance += this.dij[this.route[i]][this.route[i+1]];
+            this.distance += this.dij.getDistance(this.route[i], this.route[i+1]);
         }
     }
 }
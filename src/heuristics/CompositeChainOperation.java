@@ -0,0 +1,151 @@
+package heuristics;
+
+import checkpoint.CheckpointFile;
+import contracts.ICheckpointable;
+import contracts.ITspChainOperation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Mix of several primary heuristics working on the same route. Each modification is generated by one of them, which
+ * is chosen randomly according to configured weights.
+ * <p>
+ * All operations must share one route array (be constructed with the same path) and must not keep any other
+ * information derived from the route than its length, e.g. {@link ChainInversion} and {@link OrOpt}. Route length
+ * is tracked by this composite, lengths reported by individual operations become out of date. Composite supports
+ * checkpoints only if all of its operations support them.
+ */
+public class CompositeChainOperation implements ITspChainOperation, ICheckpointable {
+    private final ITspChainOperation[] operations;
+    private final double[] cumulativeWeights; // cumulativeWeights[i] is sum of weights of operations 0..i
+    private Random rand;
+    private ITspChainOperation chosen;        // operation which generated the last modification
+    private int savings = 0;
+    private int distance;
+
+    /**
+     * @param operations primary heuristics sharing the same route
+     * @param weights relative frequency of using each operation
+     * @param seed seed of random choice of operation
+     */
+    public CompositeChainOperation(ITspChainOperation[] operations, double[] weights, long seed) {
+        if (operations == null || weights == null)
+            throw new NullPointerException("Operations or their weights not provided");
+        if (operations.length == 0 || operations.length != weights.length)
+            throw new IllegalArgumentException("Each operation requires exactly one weight");
+        this.operations = operations.clone();
+        this.cumulativeWeights = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            if (operations[i].getSolutionRoute() != operations[0].getSolutionRoute())
+                throw new IllegalArgumentException("Operations must share the same route");
+            if (!(weights[i] >= 0))
+                throw new IllegalArgumentException("Weight cannot be negative");
+            sum += weights[i];
+            this.cumulativeWeights[i] = sum;
+        }
+        if (sum <= 0)
+            throw new IllegalArgumentException("At least one weight must be positive");
+        this.rand = new Random(seed);
+        this.distance = operations[0].getRouteLength();
+    }
+
+    @Override
+    public boolean hasNextModification() {
+        for (ITspChainOperation operation : this.operations) {
+            if (operation.hasNextModification())
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int nextModification() {
+        double r = this.rand.nextDouble() * this.cumulativeWeights[this.cumulativeWeights.length - 1];
+        int idx = 0;
+        while (idx < this.cumulativeWeights.length - 1 && r >= this.cumulativeWeights[idx]) {
+            idx++;
+        }
+        this.chosen = this.operations[idx];
+        // operation computes new length from its own (possibly out of date) length, the difference is valid anyway
+        this.savings = this.chosen.getRouteLength() - this.chosen.nextModification();
+        return this.distance - this.savings;
+    }
+
+    @Override
+    public void applyModification() {
+        this.chosen.applyModification();
+        this.distance -= this.savings;
+    }
+
+    @Override
+    public void resetRoute(int[] path) {
+        for (ITspChainOperation operation : this.operations) {
+            operation.resetRoute(path);
+        }
+        this.distance = this.operations[0].getRouteLength();
+    }
+
+    @Override
+    public boolean supportsCheckpoints() {
+        for (ITspChainOperation operation : this.operations) {
+            if (!(operation instanceof ICheckpointable) || !((ICheckpointable) operation).supportsCheckpoints())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes states of all operations, so each of them keeps its own (out of date) route length and random state.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        if (!this.supportsCheckpoints())
+            throw new IllegalStateException(this.getHeuristicName() + " has operation without checkpoints");
+        out.writeInt(this.operations.length);
+        for (ITspChainOperation operation : this.operations) {
+            ((ICheckpointable) operation).writeState(out);
+        }
+        out.writeInt(this.distance);
+        CheckpointFile.writeRandom(this.rand, out);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        if (!this.supportsCheckpoints())
+            throw new IllegalStateException(this.getHeuristicName() + " has operation without checkpoints");
+        if (in.readInt() != this.operations.length)
+            throw new IOException("Mismatch between checkpoint operations count and composite operations count");
+        for (ITspChainOperation operation : this.operations) {
+            ((ICheckpointable) operation).readState(in);
+        }
+        this.distance = in.readInt();
+        this.rand = CheckpointFile.readRandom(in);
+        this.chosen = null;
+        this.savings = 0;
+    }
+
+    @Override
+    public int[] getSolutionRoute() {
+        return this.operations[0].getSolutionRoute();
+    }
+
+    @Override
+    public int getRouteLength() {
+        return this.distance;
+    }
+
+    @Override
+    public String getHeuristicName() {
+        StringBuilder name = new StringBuilder("Composite of ");
+        for (int i = 0; i < this.operations.length; i++) {
+            double weight = this.cumulativeWeights[i] - (i == 0 ? 0 : this.cumulativeWeights[i - 1]);
+            name.append(i == 0 ? "" : ", ").append(this.operations[i].getHeuristicName())
+                    .append(String.format(" (%.0f%%)", 100 * weight / this.cumulativeWeights[this.cumulativeWeights.length - 1]));
+        }
+        return name.toString();
+    }
+}
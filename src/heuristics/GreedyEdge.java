@@ -0,0 +1,232 @@
+package heuristics;
+
+import contracts.IDistanceMatrix;
+import contracts.ITspHeuristic;
+import matrix.CandidateLists;
+
+import java.util.Arrays;
+
+/**
+ * Greedy edge heuristic for Traveling Salesman Problem builds route from the shortest edges. Edges between each node
+ * and its nearest nodes are sorted by length and each of them is accepted, if both its end nodes have less than two
+ * edges and it doesn't close a cycle (checked by union-find). Accepted edges form paths (fragments), which are joined
+ * at the end - from the last node of route to the nearest free end of another fragment.
+ * <p>
+ * Only K edges per node are sorted, so the heuristic runs in O(n K log(n K)) time besides building of candidate lists,
+ * which makes it usable for instances, where {@link TspSeqGrowthByNearest} takes too long. Matrix is expected to be
+ * symmetric, distance from lower ID to higher ID is used as length of edge.
+ */
+public class GreedyEdge implements ITspHeuristic {
+    private static final int DEFAULT_K = 10; // count of nearest nodes, whose edges are considered
+
+    private final int M;               // nodes count
+    private final IDistanceMatrix dij; // distance matrix
+    private final CandidateLists cand; // nearest nodes of each node
+    private final int[] x;             // solution - route of salesman
+    private final int[] adj;           // adj[2*i] and adj[2*i + 1] are nodes adjacent to node i, -1 if not defined
+    private final int[] degree;        // count of accepted edges of each node
+    private final int[] parent;        // union-find forest of fragments
+    private int routeLength;           // overall length of created route
+    private int fragmentsCount;        // count of fragments joined at the end
+
+    /**
+     * Creates heuristic considering edges to {@value #DEFAULT_K} nearest nodes of each node.
+     */
+    public GreedyEdge(IDistanceMatrix distanceMatrix) {
+        this(distanceMatrix, CandidateLists.build(distanceMatrix, DEFAULT_K));
+    }
+
+    /**
+     * @param distanceMatrix distances between each pair of nodes
+     * @param candidates nearest nodes of each node, edges to them are candidates for route
+     */
+    public GreedyEdge(IDistanceMatrix distanceMatrix, CandidateLists candidates) {
+        if (distanceMatrix == null)
+            throw new NullPointerException("Distance matrix not provided");
+        if (candidates == null)
+            throw new NullPointerException("Candidate lists not provided");
+        if (distanceMatrix.getNodesCount() < 4)
+            throw new IllegalArgumentException("Heuristic solves TSP with at least 4 nodes");
+        if (candidates.getNodesCount() != distanceMatrix.getNodesCount())
+            throw new IllegalArgumentException("Mismatch between candidate lists nodes count and matrix nodes count");
+
+        this.M = distanceMatrix.getNodesCount();
+        this.dij = distanceMatrix;
+        this.cand = candidates;
+        this.x = new int[this.M + 1];
+        this.adj = new int[2 * this.M];
+        this.degree = new int[this.M];
+        this.parent = new int[this.M];
+    }
+
+    public void solve() {
+        Arrays.fill(this.adj, -1);
+        Arrays.fill(this.degree, 0);
+        for (int i = 0; i < this.M; i++) {
+            this.parent[i] = i;
+        }
+        long[] edges = this.sortedEdges();
+        int K = this.cand.getK();
+        int accepted = 0;
+        for (int e = 0; e < edges.length && accepted < this.M - 1; e++) {
+            int slot = (int) edges[e]; // lower half of key is index of candidate entry
+            int i = slot / K;
+            int j = this.cand.getNeighbour(i, slot % K);
+            if (this.degree[i] == 2 || this.degree[j] == 2)
+                continue;
+            int ri = this.find(i);
+            int rj = this.find(j);
+            if (ri == rj) // edge would close cycle
+                continue;
+            this.parent[ri] = rj;
+            this.adj[2 * i + this.degree[i]++] = j;
+            this.adj[2 * j + this.degree[j]++] = i;
+            accepted++;
+        }
+        this.joinFragments();
+    }
+
+    @Override
+    public int[] getSolutionRoute() {
+        return this.x;
+    }
+
+    public int getRouteLength() {
+        return this.routeLength;
+    }
+
+    /**
+     * @return count of fragments formed by accepted edges, 1 means that only closing edge was not a candidate edge.
+     */
+    public int getFragmentsCount() {
+        return this.fragmentsCount;
+    }
+
+    public void printSolution() {
+        System.out.print("\n TSP greedy edge heuristic result:\n  x = (");
+        for (int i = 0; i < (this.x.length - 1); i++) {
+            if (i != 0 && i % 22 == 0)
+                System.out.print("\n      ");
+            System.out.printf("%d, ", this.x[i]);
+        }
+        System.out.printf("%d)\n", this.x[0]);
+        System.out.println("  * TSP route length: " + this.routeLength);
+        System.out.println("  * fragments joined: " + this.fragmentsCount);
+    }
+
+    /**
+     * @return keys of candidate edges sorted ascending, upper half of key is length of edge and lower half is index
+     * of candidate entry <code>i*K + r</code>. Edge present in lists of both its nodes is taken once.
+     */
+    private long[] sortedEdges() {
+        int K = this.cand.getK();
+        long[] edges = new long[this.M * K];
+        int count = 0;
+        for (int i = 0; i < this.M; i++) {
+            for (int r = 0; r < K; r++) {
+                int j = this.cand.getNeighbour(i, r);
+                if (j < i && this.isCandidate(j, i)) // already taken from list of node j
+                    continue;
+                int d = (i < j) ? this.dij.getDistance(i, j) : this.dij.getDistance(j, i);
+                edges[count++] = ((long) d << 32) | (i * K + r);
+            }
+        }
+        if (count < edges.length)
+            edges = Arrays.copyOf(edges, count);
+        Arrays.parallelSort(edges);
+        return edges;
+    }
+
+    /**
+     * @return <code>true</code> if <code>j</code> is one of nearest nodes of <code>i</code>.
+     */
+    private boolean isCandidate(int i, int j) {
+        for (int r = 0; r < this.cand.getK(); r++) {
+            if (this.cand.getNeighbour(i, r) == j)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return representative of fragment containing <code>node</code>, path is halved on the way.
+     */
+    private int find(int node) {
+        while (this.parent[node] != node) {
+            this.parent[node] = this.parent[this.parent[node]];
+            node = this.parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * Writes fragments to solution array one after another. After each fragment, the nearest free end of other
+     * fragment is searched among nearest nodes of the last node, then among all free ends. Route is rotated to start
+     * in node 0 at the end.
+     */
+    private void joinFragments() {
+        int[] ends = new int[this.M]; // nodes with less than two edges - ends of fragments
+        int endsCount = 0;
+        for (int i = 0; i < this.M; i++) {
+            if (this.degree[i] < 2)
+                ends[endsCount++] = i;
+        }
+        boolean[] visited = new boolean[this.M];
+        int[] route = new int[this.M];
+        int k = 0;
+        int node = ends[0];
+        this.routeLength = 0;
+        this.fragmentsCount = 0;
+        while (true) {
+            // walk the fragment from its end 'node' to the other end
+            this.fragmentsCount++;
+            int prev = -1;
+            while (node >= 0) {
+                route[k++] = node;
+                visited[node] = true;
+                int next = (this.adj[2 * node] != prev) ? this.adj[2 * node] : this.adj[2 * node + 1];
+                if (next >= 0)
+                    this.routeLength += this.dij.getDistance(node, next);
+                prev = node;
+                node = next;
+            }
+            if (k == this.M)
+                break;
+            node = this.nearestFreeEnd(prev, visited);
+            if (node < 0) { // none of nearest nodes is free end, search all of them
+                int w = 0;
+                for (int e = 0; e < endsCount; e++) { // visited ends are removed during the search
+                    int end = ends[e];
+                    if (visited[end])
+                        continue;
+                    ends[w++] = end;
+                    if (node < 0 || this.dij.getDistance(prev, end) < this.dij.getDistance(prev, node))
+                        node = end;
+                }
+                endsCount = w;
+            }
+            this.routeLength += this.dij.getDistance(prev, node);
+        }
+        this.routeLength += this.dij.getDistance(route[this.M - 1], route[0]);
+        // rotate route to start in node 0
+        int start = 0;
+        while (route[start] != 0) {
+            start++;
+        }
+        System.arraycopy(route, start, this.x, 0, this.M - start);
+        System.arraycopy(route, 0, this.x, this.M - start, start);
+        this.x[this.M] = this.x[0];
+    }
+
+    /**
+     * @return the nearest unvisited end of fragment among nearest nodes of <code>node</code>, -1 if there's none.
+     */
+    private int nearestFreeEnd(int node, boolean[] visited) {
+        for (int r = 0; r < this.cand.getK(); r++) {
+            int c = this.cand.getNeighbour(node, r);
+            if (!visited[c] && this.degree[c] < 2)
+                return c;
+        }
+        return -1;
+    }
+}
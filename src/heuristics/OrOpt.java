@@ -0,0 +1,151 @@
+package heuristics;
+
+import checkpoint.CheckpointFile;
+import contracts.ICheckpointable;
+import contracts.IDistanceMatrix;
+import contracts.ITspChainOperation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Or-opt operation relocates short segment (1 to 3 nodes) of route to another place of route, optionally reversed.
+ * Starting node stays on the first and the last position of route.
+ */
+public class OrOpt implements ITspChainOperation, ICheckpointable {
+    public static final int MAX_SEGMENT_LENGTH = 3;
+
+    private final int[] route;           // valid route of TSP
+    private final IDistanceMatrix dij;   // matrix of distances between each pair of nodes
+    private final int maxSegLen;         // maximal length of relocated segment
+    private final boolean allowReversal; // whether segment may be inserted in reversed order
+    private Random rand;
+    private final int[] segment;         // buffer for nodes of relocated segment
+    private int segStart;                // index of the first node of segment in route
+    private int segLen;                  // count of nodes of segment
+    private int target;                  // segment is inserted between nodes on indices target and target+1
+    private boolean reversed;            // whether segment is inserted in reversed order
+    private int savings = Integer.MIN_VALUE;
+    private int distance = 0;
+
+    /**
+     * @param path existing valid path of Traveling Salesman problem
+     * @param maxSegmentLength maximal count of nodes of relocated segment, from interval &lt;1, 3&gt;
+     * @param allowReversal <code>true</code> if segment may be inserted in reversed order
+     * @param seed seed of random choice of moves
+     */
+    public OrOpt(int[] path, int maxSegmentLength, boolean allowReversal, IDistanceMatrix distanceMatrix, long seed) {
+        if (maxSegmentLength < 1 || maxSegmentLength > MAX_SEGMENT_LENGTH)
+            throw new IllegalArgumentException("Segment length must be from 1 to " + MAX_SEGMENT_LENGTH);
+        if (path == null)
+            throw new NullPointerException("Path of TSP not provided");
+        if (path.length < maxSegmentLength + 4)
+            throw new IllegalArgumentException("Inconsistent combination of path nodes count and segment length");
+        if (path.length - 1 != distanceMatrix.getNodesCount())
+            throw new IllegalArgumentException("Mismatch between path nodes count and matrix nodes count");
+
+        this.route = path;
+        this.dij = distanceMatrix;
+        this.maxSegLen = maxSegmentLength;
+        this.allowReversal = allowReversal;
+        this.rand = new Random(seed);
+        this.segment = new int[maxSegmentLength];
+        this.calcRouteDistance();
+    }
+
+    @Override
+    public boolean hasNextModification() {
+        return true; // moves are drawn randomly, surrounding is never exhausted
+    }
+
+    @Override
+    public int nextModification() {
+        final int n = this.route.length - 1; // nodes count, index n holds starting node again
+        this.segLen = this.rand.nextInt(this.maxSegLen) + 1;
+        // segment cannot contain starting node on index 0 and n
+        this.segStart = this.rand.nextInt(n - this.segLen) + 1;
+        int segEnd = this.segStart + this.segLen - 1;
+        // target edge cannot touch segment - edges beginning on indices segStart-1 .. segEnd are excluded
+        this.target = this.rand.nextInt(n - this.segLen - 1);
+        if (this.target >= this.segStart - 1)
+            this.target += this.segLen + 1;
+        this.reversed = this.allowReversal && this.rand.nextBoolean();
+        int p = this.route[this.segStart - 1]; // predecessor node of segment
+        int z = this.route[this.segStart];     // segment start node
+        int k = this.route[segEnd];            // segment end node
+        int s = this.route[segEnd + 1];        // successor node of segment
+        int u = this.route[this.target];       // node, after which segment is inserted
+        int v = this.route[this.target + 1];   // node, before which segment is inserted
+        int removed = this.dij.getDistance(p, z) + this.dij.getDistance(k, s) + this.dij.getDistance(u, v);
+        int added = this.dij.getDistance(p, s) + (this.reversed
+                ? this.dij.getDistance(u, k) + this.dij.getDistance(z, v)
+                : this.dij.getDistance(u, z) + this.dij.getDistance(k, v));
+        this.savings = removed - added;
+        return this.distance - this.savings;
+    }
+
+    @Override
+    public void applyModification() {
+        final int segEnd = this.segStart + this.segLen - 1;
+        System.arraycopy(this.route, this.segStart, this.segment, 0, this.segLen);
+        int insertAt; // index of the first node of segment after relocation
+        if (this.target > segEnd) { // nodes between segment and target move backwards
+            System.arraycopy(this.route, segEnd + 1, this.route, this.segStart, this.target - segEnd);
+            insertAt = this.target - this.segLen + 1;
+        } else {                    // nodes between target and segment move forwards
+            System.arraycopy(this.route, this.target + 1, this.route, this.target + 1 + this.segLen,
+                    this.segStart - this.target - 1);
+            insertAt = this.target + 1;
+        }
+        for (int i = 0; i < this.segLen; i++) {
+            this.route[insertAt + i] = this.segment[this.reversed ? this.segLen - 1 - i : i];
+        }
+        this.distance -= this.savings;
+    }
+
+    @Override
+    public void resetRoute(int[] path) {
+        if (path.length != this.route.length)
+            throw new IllegalArgumentException("Mismatch between path nodes count and current route nodes count");
+        System.arraycopy(path, 0, this.route, 0, path.length);
+        this.calcRouteDistance();
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        CheckpointFile.writeRoute(this.route, out);
+        out.writeInt(this.distance);
+        CheckpointFile.writeRandom(this.rand, out);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        CheckpointFile.readRoute(in, this.route);
+        this.distance = in.readInt();
+        this.rand = CheckpointFile.readRandom(in);
+    }
+
+    @Override
+    public int[] getSolutionRoute() {
+        return this.route;
+    }
+
+    @Override
+    public int getRouteLength() {
+        return this.distance;
+    }
+
+    @Override
+    public String getHeuristicName() {
+        return "Or-opt";
+    }
+
+    private void calcRouteDistance() {
+        this.distance = 0;
+        for (int i = 0; i < (this.route.length - 1); i++) {
+            this.distance += this.dij.getDistance(this.route[i], this.route[i+1]);
+        }
+    }
+}
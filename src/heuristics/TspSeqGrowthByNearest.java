@@ -1,8 +1,9 @@
 package heuristics;
 
+import contracts.IDistanceMatrix;
 import contracts.ITspHeuristic;
 
-import java.util.*;
+import java.util.Arrays;
 
 /**
  * Heuristic solver for Traveling Salesman Problem builds route by finding nearest node to all nodes already
@@ -11,6 +12,16 @@ import java.util.*;
  * @author Matej Poljak
  */
 public class TspSeqGrowthByNearest implements ITspHeuristic {
+    /**
+     * Rule for choosing the next node to be inserted to route.
+     */
+    public enum Selection {
+        /** node with the least sum of distances to all nodes included in route */
+        NEAREST_BY_SUM,
+        /** node, whose insertion extends the route the least (cheapest insertion) */
+        CHEAPEST_INSERTION
+    }
+
     private static final int INVALID = -1; // invalid reference - not defined
     private class Node { // helper wrapper class just for internal usage
         final int id;
@@ -22,21 +33,37 @@ public class TspSeqGrowthByNearest implements ITspHeuristic {
     }
 
     private final int M;          // nodes count
-    private final int[][] dij;    // distance matrix
+    private final IDistanceMatrix dij; // distance matrix
     private final int[] x;        // solution - route of salesman
     // v--<-- additional information attributes for faster access - simple implementation of linked list
     private final int sourceNode; // id of starting node
     private final Node[] nodes;   // sorted by node's ID ascending for direct access
     private int routeLength;      // overall length of created route
+    private final Selection selection;     // rule for choosing next node to insert
+    private final boolean cachePlaces;     // whether best places to insert are kept between iterations
+    private final int[] placePrev;         // ID of predecessor of best place to insert for each node, by node's ID
+    private final int[] placeExt;          // route extension when node is inserted to its best place, by node's ID
+
+    public TspSeqGrowthByNearest(IDistanceMatrix distanceMatrix) {
+        this(distanceMatrix, Selection.NEAREST_BY_SUM, false);
+    }
 
-    public TspSeqGrowthByNearest(int[][] distanceMatrix) {
+    /**
+     * @param distanceMatrix distances between each pair of nodes
+     * @param selection rule for choosing next node to be inserted to route
+     * @param cachePlaces if <code>true</code>, best place to insert is remembered for each not processed node and after
+     *                    insertion it is only compared with two newly created edges. Whole route is scanned only when
+     *                    the remembered edge has been split. Found places are equally cheap, but when more places
+     *                    have the same extension, another one than without cache may be chosen.
+     */
+    public TspSeqGrowthByNearest(IDistanceMatrix distanceMatrix, Selection selection, boolean cachePlaces) {
         if (distanceMatrix == null)
             throw new NullPointerException("Distance matrix not provided");
-        if (distanceMatrix.length < 4)
+        if (distanceMatrix.getNodesCount() < 4)
             throw new IllegalArgumentException("Heuristic solves TSP with at least 4 nodes");
 
-        this.M = distanceMatrix.length;
-        this.dij = distanceMatrix.clone();
+        this.M = distanceMatrix.getNodesCount();
+        this.dij = distanceMatrix;
         this.x = new int[this.M + 1];
         Arrays.fill(this.x, INVALID);
         this.nodes = new Node[this.M];
@@ -45,6 +72,10 @@ public class TspSeqGrowthByNearest implements ITspHeuristic {
         }
         this.sourceNode = 0;
         this.routeLength = 0;
+        this.selection = (selection == null) ? Selection.NEAREST_BY_SUM : selection;
+        this.cachePlaces = cachePlaces;
+        this.placePrev = new int[this.M];
+        this.placeExt = new int[this.M];
     }
 
     public void solve() {
@@ -58,33 +89,46 @@ public class TspSeqGrowthByNearest implements ITspHeuristic {
         this.nodes[i2].next = i3;
         this.nodes[i3].next = i1; // enclosing route by returning to the starting node (source)
         this.updateRouteLength();
-        // initialize list of not processed nodes
-        List<Integer> notProcessed = new ArrayList<>(this.M - 3);
+        // initialize set of not processed nodes and their sums of distances to nodes included in route
+        int[] notProcessed = new int[this.M - 3]; // first notProcessedCount elements are IDs of not processed nodes
+        int notProcessedCount = 0;
+        long[] sumToIncluded = new long[this.M];  // indexed by node's ID
         for (int i = 0; i < this.nodes.length; i++) {
             if (this.nodes[i].id != i1 && this.nodes[i].id != i2 && this.nodes[i].id != i3) {
-                notProcessed.add(this.nodes[i].id);
+                notProcessed[notProcessedCount++] = this.nodes[i].id;
+                sumToIncluded[i] = (long) this.dij.getDistance(i, i1) + this.dij.getDistance(i, i2)
+                        + this.dij.getDistance(i, i3);
             }
         }
-        // execute heuristic algorithm
-        while (!notProcessed.isEmpty()) {
-            int minDist = Integer.MAX_VALUE;
-            int bestNode = -1; // best node for insertion to the current route
-            for (int candidateId : notProcessed) {
-                int dist = this.getDistanceFromIncluded(candidateId);
-                if (dist < minDist) {
-                    minDist = dist;
-                    bestNode = candidateId;
-                }
+        if (this.cachePlaces || this.selection == Selection.CHEAPEST_INSERTION) {
+            for (int i = 0; i < notProcessedCount; i++) {
+                this.findBestPlaceToInsert(notProcessed[i]);
             }
-            int[] result = this.findBestPlaceToInsert(bestNode);
-            int prev = result[0];
+        }
+        // execute heuristic algorithm
+        while (notProcessedCount > 0) {
+            int bestIdx = (this.selection == Selection.NEAREST_BY_SUM)
+                    ? indexOfMin(notProcessed, notProcessedCount, sumToIncluded)
+                    : this.indexOfCheapest(notProcessed, notProcessedCount);
+            int bestNode = notProcessed[bestIdx]; // best node for insertion to the current route
+            if (!this.cachePlaces && this.selection == Selection.NEAREST_BY_SUM)
+                this.findBestPlaceToInsert(bestNode);
+            int prev = this.placePrev[bestNode];
             int next = this.nodes[prev].next;
             // link new node inside pair of nodes whose beginning in 'prev' node
             this.nodes[prev].next = bestNode;
             this.nodes[bestNode].next = next;
-            this.routeLength += result[1];
-//            notProcessed.remove(new Integer(bestNode)); // update list - boxing needed in order to not take it as idx
-            removeIntByValue(notProcessed, bestNode); // update list
+            this.routeLength += this.placeExt[bestNode];
+            // update set - last not processed node takes place of removed one
+            notProcessed[bestIdx] = notProcessed[--notProcessedCount];
+            if (this.selection == Selection.NEAREST_BY_SUM) {
+                for (int i = 0; i < notProcessedCount; i++) {
+                    int candidateId = notProcessed[i];
+                    sumToIncluded[candidateId] += this.dij.getDistance(candidateId, bestNode);
+                }
+            }
+            if (this.cachePlaces)
+                this.updatePlacesAfterSplit(notProcessed, notProcessedCount, prev, bestNode, next);
         }
         this.retrieveSolution(); // writes route to solution array 'x'
     }
@@ -106,22 +150,6 @@ public class TspSeqGrowthByNearest implements ITspHeuristic {
         System.out.println("  * Test of nodes presence: " + (this.verifyNodesPresence() ? "PASSED" : "FAILED!"));
     }
 
-    /**
-     * Computes sum of distances between specified <code>node</code> (which is assumed to not be part of route) and all
-     * nodes included in current route of Traveling Salesman.
-     * @param node id of observed node
-     * @return overall distance of <code>node</code> from included nodes in route.
-     */
-    private int getDistanceFromIncluded(int node) {
-        int current = this.sourceNode;
-        int sum = 0;
-        do {
-            sum += this.dij[node][current];
-            current = this.nodes[current].next;
-        } while (current != this.sourceNode); // when approaches sourceNode, it has iterated everything
-        return sum;
-    }
-
     /**
      * Gets ID of the node that has the greatest distance from specified <code>node</code> and does not appear in set
      * of <code>forbiddenNodes</code>.
@@ -142,8 +170,8 @@ public class TspSeqGrowthByNearest implements ITspHeuristic {
                     }
                 }
             }
-            if (canBeCompared && this.dij[node][i] > maxDistFromNode) {
-                maxDistFromNode = this.dij[node][i];
+            if (canBeCompared && this.dij.getDistance(node, i) > maxDistFromNode) {
+                maxDistFromNode = this.dij.getDistance(node, i);
                 wantedId = i; // update node ID (node ID corresponds index position)
             }
         }
@@ -161,19 +189,84 @@ public class TspSeqGrowthByNearest implements ITspHeuristic {
         int next;
         do {
             next = this.nodes[node].next;
-            this.routeLength += this.dij[node][next];
+            this.routeLength += this.dij.getDistance(node, next);
             node = next;
         } while (node != this.sourceNode);
     }
 
+    /**
+     * @return index of node with the least value in <code>values</code> among first <code>count</code> nodes of
+     * <code>candidates</code>. Ties are resolved by lower ID of node.
+     */
+    private static int indexOfMin(int[] candidates, int count, long[] values) {
+        long min = Long.MAX_VALUE;
+        int bestIdx = -1;
+        for (int i = 0; i < count; i++) {
+            long value = values[candidates[i]];
+            if (bestIdx == -1 || value < min || (value == min && candidates[i] < candidates[bestIdx])) {
+                min = value;
+                bestIdx = i;
+            }
+        }
+        return bestIdx;
+    }
+
+    /**
+     * @return index of node, whose insertion to its best place extends route the least, among first <code>count</code>
+     * nodes of <code>candidates</code>. Ties are resolved by lower ID of node.
+     */
+    private int indexOfCheapest(int[] candidates, int count) {
+        int bestIdx = -1;
+        for (int i = 0; i < count; i++) {
+            if (!this.cachePlaces)
+                this.findBestPlaceToInsert(candidates[i]);
+            if (bestIdx == -1 || this.placeExt[candidates[i]] < this.placeExt[candidates[bestIdx]]
+                    || (this.placeExt[candidates[i]] == this.placeExt[candidates[bestIdx]] && candidates[i] < candidates[bestIdx])) {
+                bestIdx = i;
+            }
+        }
+        return bestIdx;
+    }
+
+    /**
+     * Updates remembered best places to insert after edge (<code>prev</code>, <code>next</code>) was split by inserting
+     * <code>inserted</code> node. Remembered place of node is compared just with new edges (<code>prev</code>,
+     * <code>inserted</code>) and (<code>inserted</code>, <code>next</code>). Whole route is searched again only if the
+     * split edge was remembered place of node and both new edges are more expensive than it.
+     * @param candidates IDs of not processed nodes, whose places are updated
+     * @param count count of valid elements in <code>candidates</code>
+     */
+    private void updatePlacesAfterSplit(int[] candidates, int count, int prev, int inserted, int next) {
+        final int dPrevIns = this.dij.getDistance(prev, inserted);
+        final int dInsNext = this.dij.getDistance(inserted, next);
+        for (int i = 0; i < count; i++) {
+            int node = candidates[i];
+            int extPrev = this.dij.getDistance(prev, node) + this.dij.getDistance(node, inserted) - dPrevIns;
+            int extNext = this.dij.getDistance(inserted, node) + this.dij.getDistance(node, next) - dInsNext;
+            int extNew = Math.min(extPrev, extNext);
+            if (this.placePrev[node] == prev) { // remembered edge doesn't exist anymore
+                if (extNew > this.placeExt[node]) { // any other edge may be better now, whole route must be searched
+                    this.findBestPlaceToInsert(node);
+                    continue;
+                }
+            } else if (extNew >= this.placeExt[node]) {
+                continue;
+            }
+            // no other edge is cheaper than remembered one, so the better of new edges is the best place
+            this.placeExt[node] = extNew;
+            this.placePrev[node] = (extPrev <= extNext) ? prev : inserted;
+        }
+    }
+
     /**
      * Finds the best pair of nodes between which should be specified <code>node</code> inserted. Determining condition
-     * is to extend current route as least as possible.
+     * is to extend current route as least as possible. Result is saved to <code>placePrev[node]</code> as ID of
+     * predecessor's node - node, after which should be specified <code>node</code> inserted, and to
+     * <code>placeExt[node]</code> as the value by which will route be longer after inserting <code>node</code> on
+     * found place.
      * @param node ID of node to insert to route
-     * @return resultArr[idx=0] is ID of predecessor's node - node, after which should be specified <code>node</code> inserted.
-     * resultArr[idx=1] is the value by which will route be longer after inserting <code>node</code> on found place.
      */
-    private int[] findBestPlaceToInsert(int node) {
+    private void findBestPlaceToInsert(int node) {
         int extension; // value by which would be route longer, if node was inserted between node i and node j, which are a part of route
         int leastExt = Integer.MAX_VALUE;
         int bestNode = -1; // ID of node that is predecessor of best place for node to insert
@@ -181,14 +274,15 @@ public class TspSeqGrowthByNearest implements ITspHeuristic {
         int j; // successor of node i
         do {
             j = this.nodes[i].next;
-            extension = this.dij[i][node] + this.dij[node][j] - this.dij[i][j];
+            extension = this.dij.getDistance(i, node) + this.dij.getDistance(node, j) - this.dij.getDistance(i, j);
             if (extension < leastExt) {
                 leastExt = extension;
                 bestNode = i;
             }
             i = j;
         } while (leastExt > 0 && i != this.sourceNode); // if extension is 0, no need to find better candidate
-        return new int[] { bestNode, leastExt };
+        this.placePrev[node] = bestNode;
+        this.placeExt[node] = leastExt;
     }
 
     /**
@@ -222,18 +316,4 @@ public class TspSeqGrowthByNearest implements ITspHeuristic {
         }
         return true;
     }
-
-    /**
-     * Instead of standard remove by object, because int was taken as index parameter.
-     * @param list
-     * @param value
-     */
-    private static void removeIntByValue(List<Integer> list, int value) {
-        for (int i = 0; i < list.size(); i++) {
-            if (list.get(i) == value) {
-                list.remove(i); // remove by index, when value is the same
-                return;
-            }
-        }
-    }
 }
@@ -0,0 +1,237 @@
+package heuristics;
+
+import contracts.IDistanceMatrix;
+import contracts.ITour;
+import contracts.ITspChainOperation;
+import matrix.CandidateLists;
+import tour.ArrayTour;
+
+import java.util.Random;
+
+/**
+ * General 2-opt operation, which replaces any two edges of route by two other edges. Moves are proposed from
+ * candidate lists - new edge connects node with one of its nearest nodes, which is not its route neighbour (any other
+ * node is drawn only when repeated draws of candidates fail), so each move changes route. Route is kept behind {@link ITour},
+ * e.g. in array ({@link ArrayTour}) for small instances or in two-level list ({@link tour.TwoLevelListTour}) for large
+ * ones. Tour may reverse either side of the cycle, so starting node and orientation of route may change.
+ * <p>
+ * Besides being primary heuristic of meta heuristics, it can run stand-alone local search (see {@link #optimize()}),
+ * which applies improving moves until 2-opt local optimum is reached. Savings are computed in constant time for
+ * symmetric matrices only.
+ */
+public class TwoOpt implements ITspChainOperation {
+    private static final int MAX_CANDIDATE_DRAWS = 64; // then new edge is drawn from all nodes, not only candidates
+    private final int n;                  // nodes count
+    private final ITour tour;             // current route
+    private final IDistanceMatrix dij;    // matrix of distances between each pair of nodes
+    private final CandidateLists cand;    // nearest nodes of each node
+    private final Random rand;
+    private final int[] queue;            // circular queue of nodes, whose don't-look bit is off
+    private final boolean[] queued;       // queued[node] is true, if don't-look bit of node is off
+    private int from = -1;                // first node of path reversed by prepared move, -1 if no move is prepared
+    private int to = -1;                  // last node of path reversed by prepared move
+    private int savings = 0;
+    private int distance = 0;
+
+    /**
+     * Creates operation working on route kept in array, see {@link ArrayTour}.
+     * @param path existing valid path of Traveling Salesman problem, it is modified by this operation
+     * @param distanceMatrix symmetric matrix of distances
+     * @param candidates nearest nodes of each node, from which new edges are chosen
+     * @param seed seed of random choice of moves
+     */
+    public TwoOpt(int[] path, IDistanceMatrix distanceMatrix, CandidateLists candidates, long seed) {
+        this(new ArrayTour(checkPath(path)), distanceMatrix, candidates, seed);
+    }
+
+    /**
+     * @param tour existing valid route of Traveling Salesman problem, it is modified by this operation
+     * @param distanceMatrix symmetric matrix of distances
+     * @param candidates nearest nodes of each node, from which new edges are chosen
+     * @param seed seed of random choice of moves
+     */
+    public TwoOpt(ITour tour, IDistanceMatrix distanceMatrix, CandidateLists candidates, long seed) {
+        if (tour == null)
+            throw new NullPointerException("Tour of TSP not provided");
+        if (candidates == null)
+            throw new NullPointerException("Candidate lists not provided");
+        if (tour.getNodesCount() < 4)
+            throw new IllegalArgumentException("2-opt requires route of at least 4 nodes");
+        if (tour.getNodesCount() != distanceMatrix.getNodesCount() || candidates.getNodesCount() != distanceMatrix.getNodesCount())
+            throw new IllegalArgumentException("Mismatch between path nodes count and matrix nodes count");
+
+        this.n = tour.getNodesCount();
+        this.tour = tour;
+        this.dij = distanceMatrix;
+        this.cand = candidates;
+        this.rand = new Random(seed);
+        this.queue = new int[this.n];
+        this.queued = new boolean[this.n];
+        this.measureRoute();
+    }
+
+    @Override
+    public boolean hasNextModification() {
+        return true; // moves are drawn randomly, surrounding is never exhausted
+    }
+
+    @Override
+    public int nextModification() {
+        int a;
+        int c;
+        int draws = 0;
+        do { // new edge must not connect route neighbours, else the move wouldn't change route
+            a = this.rand.nextInt(this.n);
+            c = (draws++ < MAX_CANDIDATE_DRAWS) ? this.cand.getNeighbour(a, this.rand.nextInt(this.cand.getK()))
+                    : this.rand.nextInt(this.n);
+        } while (c == a || c == this.tour.next(a) || c == this.tour.prev(a));
+        boolean forward = this.rand.nextBoolean();
+        int a2 = forward ? this.tour.next(a) : this.tour.prev(a);
+        int c2 = forward ? this.tour.next(c) : this.tour.prev(c);
+        this.prepareMove(a, a2, c, c2, forward);
+        this.savings = (this.dij.getDistance(a, a2) + this.dij.getDistance(c, c2))
+                - (this.dij.getDistance(a, c) + this.dij.getDistance(a2, c2));
+        return this.distance - this.savings;
+    }
+
+    @Override
+    public void applyModification() {
+        if (this.from >= 0)
+            this.tour.reverse(this.from, this.to);
+        this.distance -= this.savings;
+        this.from = -1;
+        this.savings = 0;
+    }
+
+    /**
+     * Applies improving 2-opt moves until none of them exists (2-opt local optimum). Each node is examined with its
+     * nearest nodes only and nodes whose neighbourhood didn't change since their last unsuccessful examination are
+     * skipped (don't-look bits).
+     * @return length of route in local optimum
+     */
+    public int optimize() {
+        int head = 0;
+        int count = 0;
+        int[] route = this.tour.getRoute();
+        for (int k = 0; k < this.n; k++) {
+            this.queue[count++] = route[k];
+            this.queued[route[k]] = true;
+        }
+        int[] ends = new int[4];
+        while (count > 0) {
+            int a = this.queue[head];
+            head = (head + 1 == this.n) ? 0 : head + 1;
+            count--;
+            this.queued[a] = false;
+            if (!this.improveFrom(a, true, ends) && !this.improveFrom(a, false, ends))
+                continue;
+            // endpoints of changed edges get another chance
+            int tail = head + count;
+            for (int node : ends) {
+                if (!this.queued[node]) {
+                    this.queue[(tail >= this.n) ? tail - this.n : tail] = node;
+                    this.queued[node] = true;
+                    tail++;
+                    count++;
+                }
+            }
+            this.applyModification();
+        }
+        return this.distance;
+    }
+
+    @Override
+    public void resetRoute(int[] path) {
+        if (path.length != this.n + 1)
+            throw new IllegalArgumentException("Mismatch between path nodes count and current route nodes count");
+        this.tour.setRoute(path);
+        this.measureRoute();
+    }
+
+    @Override
+    public int[] getSolutionRoute() {
+        return this.tour.getRoute();
+    }
+
+    @Override
+    public int getRouteLength() {
+        return this.distance;
+    }
+
+    @Override
+    public String getHeuristicName() {
+        return "2-opt";
+    }
+
+    /**
+     * Looks for improving move which connects <code>a</code> with one of its nearest nodes. If found, move is prepared
+     * to be applied.
+     * @param forward <code>true</code> to replace edge from <code>a</code> to its successor, <code>false</code> to
+     *                replace edge from its predecessor to <code>a</code>
+     * @param ends receives end nodes of both replaced edges, if improving move was found
+     * @return <code>true</code> if improving move was found.
+     */
+    private boolean improveFrom(int a, boolean forward, int[] ends) {
+        int a2 = forward ? this.tour.next(a) : this.tour.prev(a);
+        int dA = this.dij.getDistance(a, a2);
+        for (int r = 0; r < this.cand.getK(); r++) {
+            int c = this.cand.getNeighbour(a, r);
+            int dAC = this.dij.getDistance(a, c);
+            if (dAC >= dA) // lists are ordered, no further neighbour can bring gain
+                return false;
+            int c2 = forward ? this.tour.next(c) : this.tour.prev(c);
+            if (c2 == a || c == a2)
+                continue;
+            int gain = dA + this.dij.getDistance(c, c2) - dAC - this.dij.getDistance(a2, c2);
+            if (gain > 0) {
+                this.prepareMove(a, a2, c, c2, forward);
+                this.savings = gain;
+                ends[0] = a;
+                ends[1] = a2;
+                ends[2] = c;
+                ends[3] = c2;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Prepares move which replaces edges <code>(a, a2)</code> and <code>(c, c2)</code> by edges <code>(a, c)</code>
+     * and <code>(a2, c2)</code>.
+     * @param forward <code>true</code> if <code>a2</code> and <code>c2</code> are successors of <code>a</code> and
+     *                <code>c</code>, <code>false</code> if they are their predecessors
+     */
+    private void prepareMove(int a, int a2, int c, int c2, boolean forward) {
+        if (forward) { // path a2 -> c is reversed
+            this.from = a2;
+            this.to = c;
+        } else {       // path a -> c2 is reversed
+            this.from = a;
+            this.to = c2;
+        }
+    }
+
+    /**
+     * Computes length of route and discards prepared move.
+     */
+    private void measureRoute() {
+        this.distance = 0;
+        int node = 0;
+        for (int k = 0; k < this.n; k++) {
+            int next = this.tour.next(node);
+            this.distance += this.dij.getDistance(node, next);
+            node = next;
+        }
+        this.from = -1;
+        this.savings = 0;
+    }
+
+    private static int[] checkPath(int[] path) {
+        if (path == null)
+            throw new NullPointerException("Path of TSP not provided");
+        if (path.length < 5)
+            throw new IllegalArgumentException("2-opt requires route of at least 4 nodes");
+        return path;
+    }
+}
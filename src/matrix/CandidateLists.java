@@ -0,0 +1,208 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.stream.IntStream;
+
+/**
+ * Lists of K nearest nodes of each node (candidate lists), which allow move operators and construction heuristics
+ * to consider only promising edges. Lists are kept in one flat array, where neighbours of node <code>i</code> occupy
+ * indices from <code>i*K</code> to <code>i*K + K - 1</code>, ordered by distance from node <code>i</code> ascending.
+ * <p>
+ * Lists can be cached in binary file next to matrix file. Cache file consists of header with magic number, version,
+ * nodes count, K, size and modification time of matrix file, followed by little-endian neighbour IDs.
+ */
+public final class CandidateLists {
+    private static final int MAGIC = 0x43505354; // "TSPC" read as little-endian integer
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private final int M;             // nodes count
+    private final int K;             // count of neighbours of each node
+    private final int[] neighbours;  // neighbours[i*K + r] is r-th nearest node of node i
+
+    private CandidateLists(int nodesCount, int k, int[] neighbours) {
+        this.M = nodesCount;
+        this.K = k;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Builds lists of nearest nodes, rows of matrix are processed in parallel.
+     * @param dij distances between each pair of nodes
+     * @param k count of nearest nodes kept for each node, it's reduced to <code>nodesCount - 1</code> if greater
+     * @return candidate lists, nearest nodes are ordered by distance ascending, ties by ID ascending
+     */
+    public static CandidateLists build(IDistanceMatrix dij, int k) {
+        if (dij == null)
+            throw new NullPointerException("Distance matrix not provided");
+        if (k < 1)
+            throw new IllegalArgumentException("At least one neighbour is required");
+        final int M = dij.getNodesCount();
+        final int K = Math.min(k, M - 1);
+        final int[] neighbours = new int[M * K];
+        IntStream.range(0, M).parallel().forEach(i -> selectNearest(dij, i, K, neighbours));
+        return new CandidateLists(M, K, neighbours);
+    }
+
+    /**
+     * Reads candidate lists from cache file next to <code>matrixFile</code>. If cache does not exist or it does not
+     * correspond to current content of matrix file, lists are built and cache is (re)written.
+     * @param dij distances loaded from <code>matrixFile</code>
+     * @param k count of nearest nodes kept for each node
+     * @param matrixFile file from which <code>dij</code> was loaded
+     */
+    public static CandidateLists loadOrBuild(IDistanceMatrix dij, int k, File matrixFile) throws IOException {
+        File cache = cacheFileFor(matrixFile, k);
+        CandidateLists lists = cache.isFile() ? read(cache, matrixFile) : null;
+        if (lists == null || lists.M != dij.getNodesCount()) {
+            lists = build(dij, k);
+            lists.write(cache, matrixFile);
+        }
+        return lists;
+    }
+
+    /**
+     * @return file in which candidate lists with <code>k</code> neighbours of nodes from <code>matrixFile</code> are
+     * cached.
+     */
+    public static File cacheFileFor(File matrixFile, int k) {
+        return new File(matrixFile.getPath() + ".k" + k + ".cand");
+    }
+
+    public int getNodesCount() {
+        return this.M;
+    }
+
+    public int getK() {
+        return this.K;
+    }
+
+    /**
+     * @param node ID of node
+     * @param rank order of neighbour, 0 is the nearest one
+     * @return ID of <code>rank</code>-th nearest node of <code>node</code>.
+     */
+    public int getNeighbour(int node, int rank) {
+        return this.neighbours[node * this.K + rank];
+    }
+
+    /**
+     * @return flat array of all lists, neighbours of node <code>i</code> begin on index <code>i*K</code>. Array is not
+     * copied, so it must not be modified.
+     */
+    public int[] getNeighbours() {
+        return this.neighbours;
+    }
+
+    /**
+     * Selects K nearest nodes of node <code>i</code> using bounded max-heap, whose root is the farthest of selected
+     * nodes, and writes them to its list ordered by distance.
+     */
+    private static void selectNearest(IDistanceMatrix dij, int i, int K, int[] neighbours) {
+        final int M = dij.getNodesCount();
+        int[] heapNode = new int[K];
+        int[] heapDist = new int[K];
+        int size = 0;
+        for (int j = 0; j < M; j++) {
+            if (j == i)
+                continue;
+            int d = dij.getDistance(i, j);
+            if (size < K) { // sift up
+                int pos = size++;
+                while (pos > 0) {
+                    int parent = (pos - 1) >> 1;
+                    if (!isFarther(d, j, heapDist[parent], heapNode[parent]))
+                        break;
+                    heapDist[pos] = heapDist[parent];
+                    heapNode[pos] = heapNode[parent];
+                    pos = parent;
+                }
+                heapDist[pos] = d;
+                heapNode[pos] = j;
+            } else if (isFarther(heapDist[0], heapNode[0], d, j)) {
+                siftDown(heapDist, heapNode, size, d, j);
+            }
+        }
+        // removing root repeatedly gives nodes from the farthest one
+        for (int last = size - 1; last >= 0; last--) {
+            neighbours[i * K + last] = heapNode[0];
+            siftDown(heapDist, heapNode, last, heapDist[last], heapNode[last]);
+        }
+    }
+
+    /**
+     * Places node with distance <code>d</code> to root of heap of given <code>size</code> and moves it down to its
+     * position.
+     */
+    private static void siftDown(int[] heapDist, int[] heapNode, int size, int d, int node) {
+        int pos = 0;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && isFarther(heapDist[child + 1], heapNode[child + 1], heapDist[child], heapNode[child]))
+                child++;
+            if (!isFarther(heapDist[child], heapNode[child], d, node))
+                break;
+            heapDist[pos] = heapDist[child];
+            heapNode[pos] = heapNode[child];
+            pos = child;
+        }
+        heapDist[pos] = d;
+        heapNode[pos] = node;
+    }
+
+    /**
+     * @return <code>true</code> if node <code>a</code> in distance <code>dA</code> is farther than node <code>b</code>
+     * in distance <code>dB</code>, equal distances are ordered by ID.
+     */
+    private static boolean isFarther(int dA, int a, int dB, int b) {
+        return dA > dB || (dA == dB && a > b);
+    }
+
+    private void write(File cache, File matrixFile) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * this.neighbours.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(this.M).putInt(this.K)
+                .putLong(matrixFile.length()).putLong(matrixFile.lastModified());
+        buffer.asIntBuffer().put(this.neighbours); // view starts behind header and doesn't move position of buffer
+        buffer.rewind();
+        try (RandomAccessFile raf = new RandomAccessFile(cache, "rw"); FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * @return lists read from <code>cache</code>, or <code>null</code> if cache is invalid or out of date.
+     */
+    private static CandidateLists read(File cache, File matrixFile) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(cache, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() < HEADER_SIZE)
+                return null;
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            int M = mapping.getInt(8);
+            int K = mapping.getInt(12);
+            if (mapping.getInt(0) != MAGIC || mapping.getInt(4) != VERSION
+                    || mapping.getLong(16) != matrixFile.length() || mapping.getLong(24) != matrixFile.lastModified()
+                    || channel.size() != HEADER_SIZE + 4L * M * K)
+                return null;
+            mapping.position(HEADER_SIZE);
+            IntBuffer cells = mapping.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            int[] neighbours = new int[M * K];
+            cells.get(neighbours);
+            return new CandidateLists(M, K, neighbours);
+        }
+    }
+}
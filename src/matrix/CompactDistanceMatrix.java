@@ -0,0 +1,47 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+/**
+ * Row-major distance matrix which keeps each distance in 16 bits. It is applicable for instances whose distances are
+ * all from interval &lt;0, 65535&gt; and it takes half of memory of {@link FlatDistanceMatrix}.
+ */
+public final class CompactDistanceMatrix implements IDistanceMatrix {
+    static final int MAX_DISTANCE = Character.MAX_VALUE;
+
+    private final int M;          // nodes count
+    private final char[] cells;   // row-major distances, cell (i, j) is on index i*M + j
+
+    /**
+     * @param source matrix whose distances are copied
+     * @throws IllegalArgumentException if matrix doesn't fit in one array (more than about 46 thousand nodes)
+     */
+    public CompactDistanceMatrix(IDistanceMatrix source) {
+        this.M = source.getNodesCount();
+        this.cells = new char[DistanceMatrices.cellsCount((long) this.M * this.M, this.M)];
+        int idx = 0;
+        for (int i = 0; i < this.M; i++) {
+            for (int j = 0; j < this.M; j++) {
+                int d = source.getDistance(i, j);
+                if (d < 0 || d > MAX_DISTANCE)
+                    throw new IllegalArgumentException("Distance " + d + " does not fit in 16 bits");
+                this.cells[idx++] = (char) d;
+            }
+        }
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.M;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        return this.cells[from * this.M + to];
+    }
+
+    @Override
+    public long getStorageBytes() {
+        return 2L * this.cells.length;
+    }
+}
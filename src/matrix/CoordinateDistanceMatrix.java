@@ -0,0 +1,222 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+/**
+ * Distance matrix of nodes given by coordinates, distances are computed on demand by TSPLIB distance functions. Only
+ * coordinates are stored for all nodes, so memory grows linearly with nodes count.
+ * <p>
+ * Rows which are read repeatedly (e.g. scanned by construction heuristics) are computed whole and kept in bounded
+ * cache. Row is admitted after its lookups missed the cache twice as many times as it has distances, so rows scanned
+ * only once are never cached, rarely read rows don't evict hot ones and computing admitted rows adds at most half to
+ * the cost of missed lookups even if rows are read randomly. When cache is full, victim is chosen by clock algorithm -
+ * rows read since the last pass of the clock hand get second chance.
+ * <p>
+ * Matrix can be shared by several threads. Cached row is published through final field, so its distances are always
+ * seen complete. Lookup counters and reference bits are updated without synchronization - a lost update only
+ * postpones admission or eviction of a row.
+ */
+public final class CoordinateDistanceMatrix implements IDistanceMatrix {
+    /**
+     * Distance functions of TSPLIB.
+     */
+    public enum Metric {
+        /** Euclidean distance rounded to the nearest integer. */
+        EUC_2D,
+        /** Pseudo-Euclidean distance rounded up, used by ATT instances. */
+        ATT,
+        /** Great circle distance in kilometres, coordinates are latitude and longitude in <code>DDD.MM</code> format. */
+        GEO
+    }
+
+    /**
+     * Default size of row cache for {@link Metric#GEO}. Other metrics are computed faster than cached distance is
+     * read from memory of large cache, so they are not cached by default.
+     */
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+    private static final int MISS_SAMPLING = 16;       // power of two
+    private static final double GEO_PI = 3.141592;     // value of pi prescribed by TSPLIB
+    private static final double GEO_RADIUS = 6378.388; // radius of Earth prescribed by TSPLIB
+
+    /**
+     * Cached row, its distances are not modified after construction.
+     */
+    private static final class Row {
+        final int node;
+        final int[] distances;
+        boolean referenced; // read since the last pass of the clock hand
+
+        Row(int node, int[] distances) {
+            this.node = node;
+            this.distances = distances;
+        }
+    }
+
+    private final int M;                // nodes count
+    private final Metric metric;
+    private final double[] x;           // x coordinates, latitudes in radians for GEO
+    private final double[] y;           // y coordinates, longitudes in radians for GEO
+    private final Row[] rowOf;          // rowOf[i] is cached row of node i, null if the row is not cached
+    private final int[] misses;         // sampled lookups of not cached row since its last eviction
+    private final int admitAfter;       // sampled misses after which row is admitted
+    private final Row[] slots;          // rows occupying cache
+    private int hand;                   // clock hand, guarded by this
+
+    /**
+     * Creates matrix with row cache of default size for <code>metric</code>.
+     * @see #defaultCacheBytes(Metric)
+     * @see #CoordinateDistanceMatrix(double[], double[], Metric, long)
+     */
+    public CoordinateDistanceMatrix(double[] x, double[] y, Metric metric) {
+        this(x, y, metric, defaultCacheBytes(metric));
+    }
+
+    /**
+     * @param x first coordinates of nodes (latitudes for {@link Metric#GEO}), array is copied
+     * @param y second coordinates of nodes (longitudes for {@link Metric#GEO}), array is copied
+     * @param metric distance function
+     * @param cacheBytes upper bound of memory occupied by cached rows, 0 disables the cache
+     */
+    public CoordinateDistanceMatrix(double[] x, double[] y, Metric metric, long cacheBytes) {
+        if (x == null || y == null)
+            throw new NullPointerException("Coordinates not provided");
+        if (metric == null)
+            throw new NullPointerException("Metric not provided");
+        if (x.length != y.length)
+            throw new IllegalArgumentException("Mismatch between counts of x and y coordinates");
+        if (cacheBytes < 0)
+            throw new IllegalArgumentException("Cache size must not be negative");
+        this.M = x.length;
+        this.metric = metric;
+        this.x = new double[this.M];
+        this.y = new double[this.M];
+        for (int i = 0; i < this.M; i++) {
+            this.x[i] = (metric == Metric.GEO) ? geoRadians(x[i]) : x[i];
+            this.y[i] = (metric == Metric.GEO) ? geoRadians(y[i]) : y[i];
+        }
+        int capacity = (int) Math.min(this.M, cacheBytes / Math.max(1, 4L * this.M));
+        this.rowOf = new Row[this.M];
+        this.misses = new int[this.M];
+        this.admitAfter = Math.max(1, 2 * this.M / MISS_SAMPLING);
+        this.slots = new Row[capacity];
+    }
+
+    /**
+     * @return {@link #DEFAULT_CACHE_BYTES} for {@link Metric#GEO}, 0 (no cache) for other metrics.
+     */
+    public static long defaultCacheBytes(Metric metric) {
+        return (metric == Metric.GEO) ? DEFAULT_CACHE_BYTES : 0;
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.M;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        Row row = this.rowOf[from];
+        if (row != null) {
+            if (!row.referenced) // avoid writing to shared memory on every hit
+                row.referenced = true;
+            return row.distances[to];
+        }
+        // misses are counted for every MISS_SAMPLING-th column only, so most lookups don't write to memory
+        if (this.slots.length > 0 && (to & (MISS_SAMPLING - 1)) == 0 && ++this.misses[from] >= this.admitAfter)
+            return this.admit(from).distances[to];
+        return this.compute(from, to);
+    }
+
+    @Override
+    public long getStorageBytes() {
+        return 16L * this.M + 4L * this.M * this.getCachedRowsCount();
+    }
+
+    public Metric getMetric() {
+        return this.metric;
+    }
+
+    /**
+     * @return maximal count of cached rows.
+     */
+    public int getCacheCapacity() {
+        return this.slots.length;
+    }
+
+    /**
+     * @return count of currently cached rows.
+     */
+    public synchronized int getCachedRowsCount() {
+        int count = 0;
+        for (Row row : this.slots) {
+            if (row != null)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Computes distance from node <code>from</code> to node <code>to</code> without using the cache.
+     */
+    public int compute(int from, int to) {
+        if (from == to)
+            return 0;
+        switch (this.metric) {
+            case EUC_2D: {
+                double dx = this.x[from] - this.x[to];
+                double dy = this.y[from] - this.y[to];
+                return (int) (Math.sqrt(dx * dx + dy * dy) + 0.5);
+            }
+            case ATT: {
+                double dx = this.x[from] - this.x[to];
+                double dy = this.y[from] - this.y[to];
+                double r = Math.sqrt((dx * dx + dy * dy) / 10.0);
+                int t = (int) (r + 0.5);
+                return (t < r) ? t + 1 : t;
+            }
+            default: {
+                double q1 = Math.cos(this.y[from] - this.y[to]);
+                double q2 = Math.cos(this.x[from] - this.x[to]);
+                double q3 = Math.cos(this.x[from] + this.x[to]);
+                return (int) (GEO_RADIUS * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+            }
+        }
+    }
+
+    /**
+     * Computes row of node <code>from</code> and stores it in the cache.
+     */
+    private synchronized Row admit(int from) {
+        Row row = this.rowOf[from];
+        if (row != null) // admitted meanwhile by other thread
+            return row;
+        int[] distances = new int[this.M];
+        for (int to = 0; to < this.M; to++) {
+            distances[to] = this.compute(from, to);
+        }
+        row = new Row(from, distances);
+        // clock eviction - referenced slots get second chance
+        while (this.slots[this.hand] != null && this.slots[this.hand].referenced) {
+            this.slots[this.hand].referenced = false;
+            this.hand = (this.hand + 1) % this.slots.length;
+        }
+        Row victim = this.slots[this.hand];
+        if (victim != null) {
+            this.rowOf[victim.node] = null;
+            this.misses[victim.node] = 0;
+        }
+        this.slots[this.hand] = row;
+        this.rowOf[from] = row;
+        this.hand = (this.hand + 1) % this.slots.length;
+        return row;
+    }
+
+    /**
+     * Converts coordinate in <code>DDD.MM</code> format (degrees and minutes) to radians the way TSPLIB does.
+     */
+    private static double geoRadians(double coordinate) {
+        int degrees = (int) coordinate;
+        double minutes = coordinate - degrees;
+        return GEO_PI * (degrees + 5.0 * minutes / 3.0) / 180.0;
+    }
+}
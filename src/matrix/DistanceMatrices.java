@@ -0,0 +1,72 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+/**
+ * Factory methods for distance matrices. It picks the most compact representation applicable to given instance.
+ */
+public final class DistanceMatrices {
+    static final long MAX_CELLS = Integer.MAX_VALUE - 8; // the largest array length supported by common JVMs
+
+    private DistanceMatrices() {
+    }
+
+    /**
+     * Copies distances of jagged array to a flat row-major matrix.
+     * @param dij square matrix of distances
+     * @return flat matrix with the same distances
+     */
+    public static IDistanceMatrix fromRows(int[][] dij) {
+        if (dij == null)
+            throw new NullPointerException("Distance matrix not provided");
+        final int M = dij.length;
+        int[] cells = new int[cellsCount((long) M * M, M)];
+        for (int i = 0; i < M; i++) {
+            if (dij[i].length != M)
+                throw new IllegalArgumentException("Distance matrix is not square");
+            System.arraycopy(dij[i], 0, cells, i * M, M);
+        }
+        return new FlatDistanceMatrix(M, cells);
+    }
+
+    /**
+     * Chooses the representation which takes the least memory: upper triangle for symmetric matrices and 16 bits
+     * per distance, when all distances fit in.
+     * @param source matrix to compact
+     * @return matrix with the same distances as <code>source</code>, possibly <code>source</code> itself
+     */
+    public static IDistanceMatrix compact(IDistanceMatrix source) {
+        if (source == null)
+            throw new NullPointerException("Distance matrix not provided");
+        final int M = source.getNodesCount();
+        boolean symmetric = true;
+        boolean fitsIn16Bits = true;
+        for (int i = 0; i < M; i++) {
+            for (int j = i; j < M; j++) {
+                int d = source.getDistance(i, j);
+                int dBack = source.getDistance(j, i);
+                if (d != dBack)
+                    symmetric = false;
+                if (d < 0 || d > CompactDistanceMatrix.MAX_DISTANCE || dBack < 0 || dBack > CompactDistanceMatrix.MAX_DISTANCE)
+                    fitsIn16Bits = false;
+            }
+        }
+        if (symmetric && (long) M * (M + 1) / 2 <= MAX_CELLS)
+            return new TriangularDistanceMatrix(source, fitsIn16Bits);
+        if (fitsIn16Bits && (long) M * M <= MAX_CELLS)
+            return new CompactDistanceMatrix(source);
+        return source; // the more compact matrix wouldn't fit in one array
+    }
+
+    /**
+     * @param cells count of cells of matrix of <code>M</code> nodes
+     * @return <code>cells</code> as length of array
+     * @throws IllegalArgumentException if cells don't fit in one array
+     */
+    static int cellsCount(long cells, int M) {
+        if (cells > MAX_CELLS)
+            throw new IllegalArgumentException("Matrix of " + M + " nodes has " + cells
+                    + " cells, which don't fit in one array");
+        return (int) cells;
+    }
+}
@@ -0,0 +1,192 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reading and writing of distance matrix files. Two formats are supported (and TSPLIB instances given by coordinates
+ * are read by {@link TsplibFile}):
+ * <ul>
+ *     <li>text - first line contains nodes count, each next line is one row of matrix with distances separated by
+ *     white spaces</li>
+ *     <li>binary - header of {@value #HEADER_SIZE} bytes followed by little-endian cells of either full matrix (row by
+ *     row) or its upper triangle including diagonal (for symmetric matrices). Header consists of magic number, format
+ *     version, nodes count, element width in bytes (2 or 4) and flags (bit 0 is symmetry flag), each stored as
+ *     32-bit integer.</li>
+ * </ul>
+ */
+public final class DistanceMatrixFile {
+    public static final int MAGIC = 0x4D505354; // "TSPM" read as little-endian integer
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;   // header is padded, so cells are aligned
+    private static final int FLAG_SYMMETRIC = 1;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private DistanceMatrixFile() {
+    }
+
+    /**
+     * Loads matrix from <code>file</code> in any supported format. Binary file is mapped to memory, TSPLIB file is read
+     * as coordinates and distances are computed on demand, text file is parsed and its matrix is stored in the most
+     * compact applicable representation.
+     */
+    public static IDistanceMatrix load(File file) throws IOException {
+        if (isBinary(file))
+            return map(file);
+        if (TsplibFile.isTsplib(file))
+            return TsplibFile.load(file);
+        return DistanceMatrices.compact(parseText(file));
+    }
+
+    /**
+     * @return <code>true</code> if <code>file</code> begins with magic number of binary format.
+     */
+    public static boolean isBinary(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < HEADER_SIZE)
+                return false;
+            return Integer.reverseBytes(raf.readInt()) == MAGIC;
+        }
+    }
+
+    /**
+     * Maps binary matrix file to memory. Returned matrix reads distances directly from the mapping.
+     */
+    public static IDistanceMatrix map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Matrix file " + file + " is too large to be mapped at once");
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            if (size < HEADER_SIZE || mapping.getInt(0) != MAGIC)
+                throw new IOException("File " + file + " is not binary matrix file");
+            int version = mapping.getInt(4);
+            if (version != VERSION)
+                throw new IOException("Unsupported version " + version + " of matrix file " + file);
+            int M = mapping.getInt(8);
+            int width = mapping.getInt(12);
+            boolean symmetric = (mapping.getInt(16) & FLAG_SYMMETRIC) != 0;
+            if (M < 0 || (width != 2 && width != 4))
+                throw new IOException("Corrupted header of matrix file " + file);
+            long cellsCount = symmetric ? (long) M * (M + 1) / 2 : (long) M * M;
+            if (size != HEADER_SIZE + cellsCount * width)
+                throw new IOException("Size of matrix file " + file + " does not match its header");
+            mapping.position(HEADER_SIZE);
+            ByteBuffer cells = mapping.slice().order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedDistanceMatrix(M, cells, width, symmetric);
+        }
+    }
+
+    /**
+     * Writes <code>matrix</code> in binary format. Upper triangle only is written for symmetric matrix and 16 bits per
+     * distance are used, if all distances fit in.
+     */
+    public static void write(IDistanceMatrix matrix, File file) throws IOException {
+        final int M = matrix.getNodesCount();
+        boolean symmetric = true;
+        boolean fitsIn16Bits = true;
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < M; j++) {
+                int d = matrix.getDistance(i, j);
+                if (d != matrix.getDistance(j, i))
+                    symmetric = false;
+                if (d < 0 || d > CompactDistanceMatrix.MAX_DISTANCE)
+                    fitsIn16Bits = false;
+            }
+        }
+        final int width = fitsIn16Bits ? 2 : 4;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(M).putInt(width).putInt(symmetric ? FLAG_SYMMETRIC : 0);
+            while (buffer.position() < HEADER_SIZE) {
+                buffer.put((byte) 0);
+            }
+            for (int i = 0; i < M; i++) {
+                for (int j = (symmetric ? i : 0); j < M; j++) {
+                    if (buffer.remaining() < width)
+                        drain(buffer, channel);
+                    if (fitsIn16Bits)
+                        buffer.putChar((char) matrix.getDistance(i, j));
+                    else
+                        buffer.putInt(matrix.getDistance(i, j));
+                }
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    /**
+     * Parses matrix in text format. Bytes are read through one reusable buffer and digits are accumulated directly,
+     * so no strings are created for tokens.
+     * @return flat matrix with parsed distances
+     */
+    public static FlatDistanceMatrix parseText(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            int M = -1;
+            int[] cells = null;
+            int filled = 0;        // count of already parsed cells
+            int value = 0;         // value of token being parsed
+            boolean inToken = false;
+            boolean negative = false;
+            boolean eof = false;
+            while (!eof) {
+                buffer.clear();
+                eof = channel.read(buffer) < 0;
+                buffer.flip();
+                int limit = eof ? buffer.limit() + 1 : buffer.limit(); // one extra step closes last token at the end
+                for (int i = 0; i < limit; i++) {
+                    int b = (i < buffer.limit()) ? buffer.get(i) : ' ';
+                    if (b >= '0' && b <= '9') {
+                        value = value * 10 + (b - '0');
+                        inToken = true;
+                    } else if (b == '-' && !inToken) {
+                        negative = true;
+                    } else if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                        if (inToken) {
+                            int token = negative ? -value : value;
+                            if (cells == null) {
+                                M = token;
+                                if (M < 0)
+                                    throw new IOException("Invalid nodes count " + M + " in " + file);
+                                if ((long) M * M > DistanceMatrices.MAX_CELLS)
+                                    throw new IOException("Matrix of " + M + " nodes in " + file
+                                            + " doesn't fit in one array");
+                                cells = new int[M * M];
+                            } else {
+                                if (filled == cells.length)
+                                    throw new IOException("Matrix file " + file + " contains more than " + M + "x" + M + " distances");
+                                cells[filled++] = token;
+                            }
+                        }
+                        value = 0;
+                        inToken = false;
+                        negative = false;
+                    } else {
+                        throw new IOException("Unexpected character '" + (char) b + "' in " + file);
+                    }
+                }
+            }
+            if (cells == null || filled != cells.length)
+                throw new IOException("Matrix file " + file + " does not contain " + M + "x" + M + " distances");
+            return new FlatDistanceMatrix(M, cells);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,40 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+/**
+ * Distance matrix stored in a single row-major <code>int</code> array. It is applicable for every instance and it is
+ * the base from which more compact representations are derived.
+ */
+public final class FlatDistanceMatrix implements IDistanceMatrix {
+    private final int M;         // nodes count
+    private final int[] cells;   // row-major distances, cell (i, j) is on index i*M + j
+
+    /**
+     * @param nodesCount count of nodes of network
+     * @param rowMajorCells distances of matrix ordered row by row, array is taken without copying
+     */
+    public FlatDistanceMatrix(int nodesCount, int[] rowMajorCells) {
+        if (rowMajorCells == null)
+            throw new NullPointerException("Matrix cells not provided");
+        if (nodesCount < 0 || (long) nodesCount * nodesCount != rowMajorCells.length)
+            throw new IllegalArgumentException("Mismatch between nodes count and matrix cells count");
+        this.M = nodesCount;
+        this.cells = rowMajorCells;
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.M;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        return this.cells[from * this.M + to];
+    }
+
+    @Override
+    public long getStorageBytes() {
+        return 4L * this.cells.length;
+    }
+}
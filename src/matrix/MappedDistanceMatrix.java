@@ -0,0 +1,54 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Distance matrix which reads distances directly from buffer mapped onto binary matrix file (see
+ * {@link DistanceMatrixFile}). Distances are not copied to heap, so no parsing is needed when the matrix is loaded.
+ */
+public final class MappedDistanceMatrix implements IDistanceMatrix {
+    private final int M;           // nodes count
+    private final int[] rowStart;  // rowStart[i] + j is index of cell (i, j), for triangle only when i <= j
+    private final boolean symmetric;
+    private final CharBuffer narrow; // view of 16-bit cells, else null
+    private final IntBuffer wide;    // view of 32-bit cells, else null
+    private final long bytes;
+
+    /**
+     * @param nodesCount count of nodes of network
+     * @param cells buffer positioned at the first cell, containing either full matrix or its upper triangle
+     * @param elementWidth count of bytes of one distance, 2 or 4
+     * @param symmetric <code>true</code> if <code>cells</code> contains only upper triangle (including diagonal)
+     */
+    MappedDistanceMatrix(int nodesCount, ByteBuffer cells, int elementWidth, boolean symmetric) {
+        this.M = nodesCount;
+        this.symmetric = symmetric;
+        this.rowStart = new int[nodesCount];
+        for (int i = 0; i < nodesCount; i++) {
+            this.rowStart[i] = symmetric ? (i * nodesCount - i * (i - 1) / 2) - i : i * nodesCount;
+        }
+        this.narrow = (elementWidth == 2) ? cells.asCharBuffer() : null;
+        this.wide = (elementWidth == 2) ? null : cells.asIntBuffer();
+        this.bytes = cells.remaining();
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.M;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        int idx = (this.symmetric && from > to) ? this.rowStart[to] + from : this.rowStart[from] + to;
+        return (this.narrow != null) ? this.narrow.get(idx) : this.wide.get(idx);
+    }
+
+    @Override
+    public long getStorageBytes() {
+        return this.bytes + 4L * this.rowStart.length;
+    }
+}
@@ -0,0 +1,36 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts distance matrix from text format to binary format of {@link DistanceMatrixFile}.
+ * Usage: <code>MatrixConverter &lt;text matrix file&gt; [binary matrix file]</code>. When binary file is not specified,
+ * it is created next to text file with <code>.bin</code> extension.
+ */
+public class MatrixConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: MatrixConverter <text matrix file> [binary matrix file]");
+            return;
+        }
+        File source = new File(args[0]);
+        File target = new File(args.length > 1 ? args[1] : binaryFileFor(source));
+        long start = System.nanoTime();
+        IDistanceMatrix dij = DistanceMatrixFile.parseText(source);
+        long parsed = System.nanoTime();
+        DistanceMatrixFile.write(dij, target);
+        long written = System.nanoTime();
+        System.out.printf("Converted %s (%d nodes) to %s: parsed in %.1f ms, written in %.1f ms, %d bytes%n",
+                source, dij.getNodesCount(), target, (parsed - start) / 1e6, (written - parsed) / 1e6, target.length());
+    }
+
+    private static String binaryFileFor(File source) {
+        String name = source.getPath();
+        int dot = name.lastIndexOf('.');
+        return (dot > name.lastIndexOf(File.separatorChar) ? name.substring(0, dot) : name) + ".bin";
+    }
+}
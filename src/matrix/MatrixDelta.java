@@ -0,0 +1,142 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes of distance matrix between two runs - changed distances, inserted and removed nodes. Changes are collected
+ * against unchanged base matrix and {@link #apply()} returns view of base matrix with changes applied, so large matrix
+ * is neither copied nor reloaded.
+ * <p>
+ * Nodes are identified by delta IDs - nodes of base matrix keep their IDs and inserted nodes get IDs
+ * <code>baseNodesCount</code>, <code>baseNodesCount + 1</code>, ... in order of insertion. Patched matrix has
+ * contiguous IDs, see {@link PatchedDistanceMatrix#getPatchedNode(int)}.
+ */
+public final class MatrixDelta {
+    private final IDistanceMatrix base;
+    private final int N;                             // nodes count of base matrix
+    private final List<int[]> insertedFrom = new ArrayList<>(); // distances from each inserted node to older nodes
+    private final List<int[]> insertedTo = new ArrayList<>();   // distances from older nodes to each inserted node
+    private final Map<Long, Integer> distances = new HashMap<>(); // changed distances by packed pair of delta IDs
+    private boolean[] removed;                       // removed[id] is true if node with delta ID id was removed
+
+    /**
+     * @param base matrix of previous run, it must not change while delta or patched matrix is used
+     */
+    public MatrixDelta(IDistanceMatrix base) {
+        if (base == null)
+            throw new NullPointerException("Base matrix not provided");
+        this.base = base;
+        this.N = base.getNodesCount();
+        this.removed = new boolean[this.N];
+    }
+
+    public IDistanceMatrix getBase() {
+        return this.base;
+    }
+
+    /**
+     * @return count of delta IDs - nodes of base matrix and inserted nodes, including removed ones.
+     */
+    public int getNodesCount() {
+        return this.N + this.insertedFrom.size();
+    }
+
+    /**
+     * Inserts new node, distances are given to all nodes of base matrix and to nodes inserted before.
+     * @param distancesFrom distances from new node, index is delta ID of target node
+     * @param distancesTo distances to new node, index is delta ID of source node
+     * @return delta ID of inserted node
+     */
+    public int insertNode(int[] distancesFrom, int[] distancesTo) {
+        if (distancesFrom == null || distancesTo == null)
+            throw new NullPointerException("Distances of inserted node not provided");
+        int id = this.getNodesCount();
+        if (distancesFrom.length != id || distancesTo.length != id)
+            throw new IllegalArgumentException("Inserted node requires distances to all " + id + " nodes");
+        this.insertedFrom.add(distancesFrom.clone());
+        this.insertedTo.add(distancesTo.clone());
+        if (this.removed.length == id) {
+            boolean[] grown = new boolean[Math.max(id + 1, id + (id >> 3))];
+            System.arraycopy(this.removed, 0, grown, 0, id);
+            this.removed = grown;
+        }
+        return id;
+    }
+
+    /**
+     * @param node delta ID of node, which is left out of patched matrix
+     */
+    public void removeNode(int node) {
+        this.checkNode(node);
+        this.removed[node] = true;
+    }
+
+    public boolean isRemoved(int node) {
+        this.checkNode(node);
+        return this.removed[node];
+    }
+
+    /**
+     * Changes distance of one transit, distance of reverse transit stays unchanged.
+     * @param from delta ID of node where the transit begins
+     * @param to delta ID of node where the transit ends
+     * @param distance new distance of transit
+     */
+    public void setDistance(int from, int to, int distance) {
+        this.checkNode(from);
+        this.checkNode(to);
+        if (from == to)
+            throw new IllegalArgumentException("Distance of node to itself can't be changed");
+        this.distances.put(pack(from, to), distance);
+    }
+
+    /**
+     * @return count of changed distances.
+     */
+    public int getChangedCount() {
+        return this.distances.size();
+    }
+
+    /**
+     * @return view of base matrix with all changes collected so far, later changes don't affect it.
+     */
+    public PatchedDistanceMatrix apply() {
+        final int D = this.getNodesCount();
+        int[] patched = new int[D];    // patched ID of each delta ID, -1 for removed nodes
+        int M = 0;
+        for (int id = 0; id < D; id++) {
+            patched[id] = this.removed[id] ? -1 : M++;
+        }
+        int[] nodes = new int[M];
+        for (int id = 0; id < D; id++) {
+            if (patched[id] >= 0)
+                nodes[patched[id]] = id;
+        }
+        Map<Long, Integer> changed = new HashMap<>(2 * this.distances.size());
+        for (Map.Entry<Long, Integer> entry : this.distances.entrySet()) {
+            int from = patched[(int) (entry.getKey() >>> 32)];
+            int to = patched[(int) (long) entry.getKey()];
+            if (from >= 0 && to >= 0)
+                changed.put(pack(from, to), entry.getValue());
+        }
+        return new PatchedDistanceMatrix(this.base, nodes, patched, this.insertedFrom.toArray(new int[0][]),
+                this.insertedTo.toArray(new int[0][]), changed);
+    }
+
+    /**
+     * @return key of transit from node <code>from</code> to node <code>to</code>.
+     */
+    static long pack(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= this.getNodesCount())
+            throw new IllegalArgumentException("Node " + node + " is not node of delta");
+    }
+}
@@ -0,0 +1,97 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+import java.util.Map;
+
+/**
+ * View of base matrix with changes of {@link MatrixDelta} applied. Nodes which were not removed get contiguous IDs
+ * in order of their delta IDs, so inserted nodes follow nodes of base matrix. Unchanged distances are read from base
+ * matrix, changed ones are looked up only when both nodes have some changed distance.
+ */
+public final class PatchedDistanceMatrix implements IDistanceMatrix {
+    private final IDistanceMatrix base;
+    private final int N;                // nodes count of base matrix
+    private final int[] nodes;          // nodes[i] is delta ID of node i
+    private final int[] patched;        // patched[id] is ID of node with delta ID id, -1 for removed nodes
+    private final int[][] insertedFrom; // insertedFrom[k][id] is distance from k-th inserted node to delta ID id
+    private final int[][] insertedTo;   // insertedTo[k][id] is distance from delta ID id to k-th inserted node
+    private final Map<Long, Integer> changed; // changed distances by packed pair of IDs
+    private final boolean[] touched;    // touched[i] is true if some distance from or to node i was changed
+
+    PatchedDistanceMatrix(IDistanceMatrix base, int[] nodes, int[] patched, int[][] insertedFrom,
+                          int[][] insertedTo, Map<Long, Integer> changed) {
+        this.base = base;
+        this.N = base.getNodesCount();
+        this.nodes = nodes;
+        this.patched = patched;
+        this.insertedFrom = insertedFrom;
+        this.insertedTo = insertedTo;
+        this.changed = changed;
+        this.touched = new boolean[nodes.length];
+        for (long key : changed.keySet()) {
+            this.touched[(int) (key >>> 32)] = true;
+            this.touched[(int) key] = true;
+        }
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.nodes.length;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        if (this.touched[from] && this.touched[to]) {
+            Integer distance = this.changed.get(MatrixDelta.pack(from, to));
+            if (distance != null)
+                return distance;
+        }
+        int a = this.nodes[from];
+        int b = this.nodes[to];
+        if (a < this.N && b < this.N)
+            return this.base.getDistance(a, b);
+        if (a == b)
+            return 0;
+        // the later inserted node keeps distances to all older ones
+        return (a > b) ? this.insertedFrom[a - this.N][b] : this.insertedTo[b - this.N][a];
+    }
+
+    @Override
+    public long getStorageBytes() {
+        long inserted = 0;
+        for (int[] distances : this.insertedFrom) {
+            inserted += 8L * distances.length;
+        }
+        return this.base.getStorageBytes() + 8L * this.nodes.length + inserted + 48L * this.changed.size();
+    }
+
+    /**
+     * @param deltaId delta ID of node, see {@link MatrixDelta}
+     * @return ID of node in this matrix, -1 if node was removed.
+     */
+    public int getPatchedNode(int deltaId) {
+        return this.patched[deltaId];
+    }
+
+    /**
+     * @return delta ID of node <code>node</code>, which is the ID of base matrix for nodes, which were not inserted.
+     */
+    public int getDeltaNode(int node) {
+        return this.nodes[node];
+    }
+
+    /**
+     * @return <code>true</code> if node <code>node</code> is not a node of base matrix.
+     */
+    public boolean isInserted(int node) {
+        return this.nodes[node] >= this.N;
+    }
+
+    /**
+     * @return <code>true</code> if some distance from or to node <code>node</code> differs from base matrix.
+     */
+    public boolean isTouched(int node) {
+        return this.touched[node];
+    }
+}
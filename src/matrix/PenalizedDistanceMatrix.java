@@ -0,0 +1,46 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+/**
+ * View of distance matrix, in which penalty of each node is added to distances of all transits from and to the node.
+ * Length of every route grows by the same amount (twice the sum of penalties), so optimal routes don't change, but
+ * nearest nodes by penalized distances are better candidates of optimal route (e.g. with penalties of Held-Karp
+ * bound). Distances of source matrix are not copied.
+ */
+public final class PenalizedDistanceMatrix implements IDistanceMatrix {
+    private final IDistanceMatrix source;
+    private final int[] penalties;
+
+    /**
+     * @param source matrix of distances without penalties
+     * @param penalties penalty of each node, array is copied
+     */
+    public PenalizedDistanceMatrix(IDistanceMatrix source, int[] penalties) {
+        if (source == null)
+            throw new NullPointerException("Source matrix not provided");
+        if (penalties == null)
+            throw new NullPointerException("Penalties not provided");
+        if (penalties.length != source.getNodesCount())
+            throw new IllegalArgumentException("Mismatch between nodes count and penalties count");
+        this.source = source;
+        this.penalties = penalties.clone();
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.source.getNodesCount();
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        if (from == to)
+            return 0;
+        return this.source.getDistance(from, to) + this.penalties[from] + this.penalties[to];
+    }
+
+    @Override
+    public long getStorageBytes() {
+        return 4L * this.penalties.length;
+    }
+}
@@ -0,0 +1,64 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+/**
+ * View of distance matrix restricted to subset of its nodes. Node <code>i</code> of the view is node
+ * <code>getSourceNode(i)</code> of source matrix, so sub-instance (e.g. one cluster of large instance) can be solved by
+ * any heuristic without copying distances.
+ */
+public final class SubDistanceMatrix implements IDistanceMatrix {
+    private final IDistanceMatrix source;
+    private final int[] nodes;    // nodes[i] is node of source matrix, which is node i of the view
+
+    /**
+     * @param source matrix of all nodes
+     * @param nodes distinct nodes of source matrix in order of their IDs in the view, array is copied
+     */
+    public SubDistanceMatrix(IDistanceMatrix source, int[] nodes) {
+        if (source == null)
+            throw new NullPointerException("Source matrix not provided");
+        if (nodes == null)
+            throw new NullPointerException("Nodes not provided");
+        for (int node : nodes) {
+            if (node < 0 || node >= source.getNodesCount())
+                throw new IllegalArgumentException("Node " + node + " is not node of source matrix");
+        }
+        this.source = source;
+        this.nodes = nodes.clone();
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.nodes.length;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        return this.source.getDistance(this.nodes[from], this.nodes[to]);
+    }
+
+    @Override
+    public long getStorageBytes() {
+        return 4L * this.nodes.length;
+    }
+
+    /**
+     * @return node of source matrix, which is node <code>node</code> of the view.
+     */
+    public int getSourceNode(int node) {
+        return this.nodes[node];
+    }
+
+    /**
+     * Translates path of the view to path of source matrix.
+     * @return new array with source nodes of <code>route</code>
+     */
+    public int[] toSourceRoute(int[] route) {
+        int[] sourceRoute = new int[route.length];
+        for (int i = 0; i < route.length; i++) {
+            sourceRoute[i] = this.nodes[route[i]];
+        }
+        return sourceRoute;
+    }
+}
@@ -0,0 +1,60 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+/**
+ * Distance matrix of symmetric instance, which stores only upper triangle (including diagonal) of the matrix.
+ * Distances are kept either in 16 bits, if all of them fit in, or in 32 bits.
+ */
+public final class TriangularDistanceMatrix implements IDistanceMatrix {
+    private final int M;           // nodes count
+    private final int[] rowStart;  // rowStart[i] + j is index of cell (i, j) for i <= j
+    private final char[] narrow;   // cells of upper triangle, if all distances fit in 16 bits, else null
+    private final int[] wide;      // cells of upper triangle, if some distance does not fit in 16 bits, else null
+
+    /**
+     * @param source symmetric matrix whose distances are copied
+     * @param compact <code>true</code> to store distances in 16 bits, which requires all of them to fit in
+     * @throws IllegalArgumentException if upper triangle doesn't fit in one array (more than about 65 thousand nodes)
+     */
+    public TriangularDistanceMatrix(IDistanceMatrix source, boolean compact) {
+        this.M = source.getNodesCount();
+        this.rowStart = new int[this.M];
+        final int cellsCount = DistanceMatrices.cellsCount((long) this.M * (this.M + 1) / 2, this.M);
+        this.narrow = compact ? new char[cellsCount] : null;
+        this.wide = compact ? null : new int[cellsCount];
+        int idx = 0;
+        for (int i = 0; i < this.M; i++) {
+            this.rowStart[i] = idx - i; // row i begins with cell (i, i)
+            for (int j = i; j < this.M; j++) {
+                int d = source.getDistance(i, j);
+                if (d != source.getDistance(j, i))
+                    throw new IllegalArgumentException("Matrix is not symmetric at (" + i + ", " + j + ")");
+                if (compact) {
+                    if (d < 0 || d > CompactDistanceMatrix.MAX_DISTANCE)
+                        throw new IllegalArgumentException("Distance " + d + " does not fit in 16 bits");
+                    this.narrow[idx++] = (char) d;
+                } else {
+                    this.wide[idx++] = d;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.M;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        int idx = (from <= to) ? this.rowStart[from] + to : this.rowStart[to] + from;
+        return (this.narrow != null) ? this.narrow[idx] : this.wide[idx];
+    }
+
+    @Override
+    public long getStorageBytes() {
+        long cells = (this.narrow != null) ? 2L * this.narrow.length : 4L * this.wide.length;
+        return cells + 4L * this.rowStart.length;
+    }
+}
@@ -0,0 +1,116 @@
+package matrix;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Reading of TSPLIB instances given by node coordinates. Specification part consists of <code>KEY : VALUE</code>
+ * lines, of which <code>DIMENSION</code> and <code>EDGE_WEIGHT_TYPE</code> are required (supported types are listed in
+ * {@link CoordinateDistanceMatrix.Metric}). It's followed by <code>NODE_COORD_SECTION</code>, where each line contains
+ * node number (from 1) and its two coordinates. Nodes of returned matrix are numbered from 0.
+ */
+public final class TsplibFile {
+
+    private TsplibFile() {
+    }
+
+    /**
+     * @return <code>true</code> if <code>file</code> begins with keyword, as TSPLIB files do, while text matrix file
+     * begins with nodes count.
+     */
+    public static boolean isTsplib(File file) throws IOException {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.US_ASCII)) {
+            int c = reader.read();
+            while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                c = reader.read();
+            }
+            return Character.isLetter(c);
+        }
+    }
+
+    /**
+     * Reads instance with row cache of default size for its metric.
+     * @see CoordinateDistanceMatrix#defaultCacheBytes(CoordinateDistanceMatrix.Metric)
+     */
+    public static CoordinateDistanceMatrix load(File file) throws IOException {
+        return load(file, -1);
+    }
+
+    /**
+     * @param file TSPLIB file with node coordinates
+     * @param cacheBytes upper bound of memory occupied by cached rows of distances, negative value selects default
+     * size for metric of instance
+     * @return matrix computing distances from coordinates read from <code>file</code>
+     */
+    public static CoordinateDistanceMatrix load(File file, long cacheBytes) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.US_ASCII)) {
+            int M = -1;
+            CoordinateDistanceMatrix.Metric metric = null;
+            String line;
+            // specification part
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("NODE_COORD_SECTION"))
+                    break;
+                int colon = line.indexOf(':');
+                if (colon < 0)
+                    continue;
+                String key = line.substring(0, colon).trim();
+                String value = line.substring(colon + 1).trim();
+                if (key.equals("DIMENSION")) {
+                    try {
+                        M = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid dimension '" + value + "' in " + file);
+                    }
+                } else if (key.equals("EDGE_WEIGHT_TYPE")) {
+                    try {
+                        metric = CoordinateDistanceMatrix.Metric.valueOf(value);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("Unsupported edge weight type " + value + " in " + file);
+                    }
+                }
+            }
+            if (line == null)
+                throw new IOException("File " + file + " has no NODE_COORD_SECTION");
+            if (M < 0)
+                throw new IOException("File " + file + " does not specify DIMENSION");
+            if (metric == null)
+                throw new IOException("File " + file + " does not specify EDGE_WEIGHT_TYPE");
+            // node coordinates
+            double[] x = new double[M];
+            double[] y = new double[M];
+            boolean[] read = new boolean[M];
+            int count = 0;
+            while (count < M && (line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty())
+                    continue;
+                String[] tokens = line.split("\\s+");
+                if (tokens.length < 3)
+                    throw new IOException("Invalid node line '" + line + "' in " + file);
+                try {
+                    int node = Integer.parseInt(tokens[0]) - 1;
+                    if (node < 0 || node >= M || read[node])
+                        throw new IOException("Invalid or repeated node number " + tokens[0] + " in " + file);
+                    x[node] = Double.parseDouble(tokens[1]);
+                    y[node] = Double.parseDouble(tokens[2]);
+                    read[node] = true;
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid node line '" + line + "' in " + file);
+                }
+                count++;
+            }
+            if (count != M)
+                throw new IOException("File " + file + " does not contain coordinates of " + M + " nodes");
+            if (cacheBytes < 0)
+                cacheBytes = CoordinateDistanceMatrix.defaultCacheBytes(metric);
+            return new CoordinateDistanceMatrix(x, y, metric, cacheBytes);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package matrix;
+
+import contracts.IDistanceMatrix;
+
+/**
+ * View of path of source matrix (window of route) closed to cycle by dummy node 0, node <code>k</code> of the view is
+ * <code>k</code>-th node of the path. Distance of dummy node is 0 to both end nodes of path and longer than the whole
+ * path to other nodes, so any route of the view shorter than the path keeps dummy node between end nodes and the path
+ * can be optimised by any heuristic for cycles, while its end nodes stay connected to the rest of route.
+ */
+public final class WindowDistanceMatrix implements IDistanceMatrix {
+    private final IDistanceMatrix source;
+    private final int[] nodes;    // nodes[k - 1] is node of source matrix, which is node k of the view
+    private final int penalty;    // distance between dummy node and inner nodes of path
+
+    /**
+     * @param source matrix of all nodes
+     * @param nodes distinct nodes of source matrix in order of the path, array is copied
+     * @throws IllegalArgumentException if path is so long, that penalty of dummy node wouldn't fit to route length
+     */
+    public WindowDistanceMatrix(IDistanceMatrix source, int[] nodes) {
+        if (source == null)
+            throw new NullPointerException("Source matrix not provided");
+        if (nodes == null)
+            throw new NullPointerException("Nodes not provided");
+        if (nodes.length < 2)
+            throw new IllegalArgumentException("Path must have at least 2 nodes");
+        long length = 0;
+        for (int k = 0; k < nodes.length; k++) {
+            if (nodes[k] < 0 || nodes[k] >= source.getNodesCount())
+                throw new IllegalArgumentException("Node " + nodes[k] + " is not node of source matrix");
+            if (k > 0)
+                length += source.getDistance(nodes[k - 1], nodes[k]);
+        }
+        if (length >= Integer.MAX_VALUE / 4)
+            throw new IllegalArgumentException("Path is too long to be closed by dummy node");
+        this.source = source;
+        this.nodes = nodes.clone();
+        this.penalty = (int) length + 1;
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.nodes.length + 1;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        if (from == to)
+            return 0;
+        if (from == 0)
+            return (to == 1 || to == this.nodes.length) ? 0 : this.penalty;
+        if (to == 0)
+            return (from == 1 || from == this.nodes.length) ? 0 : this.penalty;
+        return this.source.getDistance(this.nodes[from - 1], this.nodes[to - 1]);
+    }
+
+    @Override
+    public long getStorageBytes() {
+        return 4L * this.nodes.length;
+    }
+
+    /**
+     * @return closed route of the view, which follows the path - dummy node, then nodes of path in their order.
+     */
+    public int[] getPathRoute() {
+        int[] route = new int[this.nodes.length + 2];
+        for (int k = 0; k <= this.nodes.length; k++) {
+            route[k] = k;
+        }
+        return route;
+    }
+
+    /**
+     * Translates route of the view, which keeps dummy node between end nodes of path, back to the path.
+     * @param route closed route of the view, it may start anywhere and follow either direction
+     * @return new array with nodes of source matrix from the first to the last node of path
+     */
+    public int[] toSourcePath(int[] route) {
+        final int size = this.nodes.length + 1; // nodes count of the view
+        int dummy = 0;
+        while (route[dummy] != 0) {
+            dummy++;
+        }
+        int step = (route[(dummy + 1) % size] == 1) ? 1 : size - 1; // route is read from dummy towards first node
+        int[] path = new int[this.nodes.length];
+        for (int k = 0; k < path.length; k++) {
+            path[k] = this.nodes[route[(dummy + step * (k + 1)) % size] - 1];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,152 @@
+package metaheuristics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+
+/**
+ * Handle of asynchronous solving started by {@link SaForTsp#solveAsync}. Annealing thread publishes immutable snapshots
+ * of the best found route - at the start, then at most once per publish interval when the best route improved, and
+ * at the end. Publishing is a volatile write of the snapshot and non-blocking offer to subscribers, which are served by
+ * their own threads, so slow subscriber never stalls annealing (it misses intermediate snapshots instead).
+ */
+public final class AnnealingRun {
+    private static final int SUBSCRIBER_BUFFER = 16;
+
+    /**
+     * Immutable best found route together with its length and progress of solving when it was published.
+     */
+    public static final class Snapshot {
+        private final int[] route;
+        private final int length;
+        private final long elapsedNanos;
+        private final long transits;
+
+        Snapshot(int[] route, int length, long elapsedNanos, long transits) {
+            this.route = route;
+            this.length = length;
+            this.elapsedNanos = elapsedNanos;
+            this.transits = transits;
+        }
+
+        /**
+         * @return copy of best found path, first and last node is the same (starting) node.
+         */
+        public int[] getRoute() {
+            return this.route.clone();
+        }
+
+        /**
+         * @return node on position <code>index</code> of best found path.
+         */
+        public int getNode(int index) {
+            return this.route[index];
+        }
+
+        public int getLength() {
+            return this.length;
+        }
+
+        /**
+         * @return time from the start of solving.
+         */
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        /**
+         * @return count of examined transits from the start of solving.
+         */
+        public long getTransits() {
+            return this.transits;
+        }
+    }
+
+    private final SaForTsp annealing;
+    private final CompletableFuture<Snapshot> result = new CompletableFuture<>();
+    private final SubmissionPublisher<Snapshot> publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(),
+            SUBSCRIBER_BUFFER);
+    private volatile Snapshot best;
+
+    AnnealingRun(SaForTsp annealing) {
+        this.annealing = annealing;
+        this.result.whenComplete((snapshot, e) -> {
+            if (this.result.isCancelled())
+                this.annealing.cancel();
+        });
+    }
+
+    /**
+     * @return future completed by the best found route when solving ends. Cancelling the future stops solving.
+     */
+    public CompletableFuture<Snapshot> getResult() {
+        return this.result;
+    }
+
+    /**
+     * @return the latest published snapshot, <code>null</code> if solving hasn't started yet.
+     */
+    public Snapshot getBest() {
+        return this.best;
+    }
+
+    /**
+     * Registers <code>consumer</code> of snapshots published from now on. Consumer is invoked by thread of common
+     * pool, never by annealing thread.
+     * @return future completed when the last snapshot was consumed
+     */
+    public CompletableFuture<Void> subscribe(Consumer<Snapshot> consumer) {
+        if (consumer == null)
+            throw new NullPointerException("Consumer of snapshots not provided");
+        return this.publisher.consume(consumer);
+    }
+
+    /**
+     * Stops solving as soon as possible. Result is completed normally by the best route found until then.
+     */
+    public void cancel() {
+        this.annealing.cancel();
+    }
+
+    /**
+     * Moves time limit of running solving later by <code>seconds</code>. It has no effect when solving already
+     * ended (e.g. because it hit limit of idle cycles).
+     * @return <code>false</code> if solving already ended
+     */
+    public boolean extendDeadline(double seconds) {
+        if (seconds <= 0)
+            throw new IllegalArgumentException("Extension of time limit must be positive");
+        this.annealing.extendDeadline((long) (seconds * 1e9));
+        return !this.result.isDone();
+    }
+
+    public boolean isDone() {
+        return this.result.isDone();
+    }
+
+    /**
+     * Called by annealing thread when the best found route improved and publish interval elapsed.
+     */
+    void publish(Snapshot snapshot) {
+        this.best = snapshot;
+        this.publisher.offer(snapshot, (subscriber, dropped) -> false); // never block, drop for slow subscriber
+    }
+
+    /**
+     * Called by annealing thread when solving ended.
+     */
+    void complete(Snapshot snapshot) {
+        this.publish(snapshot);
+        this.publisher.close();
+        this.result.complete(snapshot);
+    }
+
+    /**
+     * Called by annealing thread when solving failed.
+     */
+    void fail(Throwable cause) {
+        this.publisher.closeExceptionally(cause);
+        this.result.completeExceptionally(cause);
+    }
+}
@@ -0,0 +1,528 @@
+package metaheuristics;
+
+import contracts.IDistanceMatrix;
+import contracts.ILowerBound;
+import contracts.ITour;
+import matrix.CandidateLists;
+import tour.ArrayTour;
+import tour.TwoLevelListTour;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Iterated Lin-Kernighan local search for Traveling Salesman Problem. Local search examines nodes with don't-look bits
+ * and tries two kinds of moves from each of them:
+ * <ul>
+ *     <li>Lin-Kernighan step - chain of up to {@value #MAX_DEPTH} sequential 2-opt moves, each of them breaks the edge
+ *     opened by the previous one, and the best closed route of the chain is kept,</li>
+ *     <li>Or-opt - segment of up to {@value #MAX_SEGMENT} nodes is moved, possibly reversed, between other two nodes
+ *     (3-opt "or2.5" moves for single node).</li>
+ * </ul>
+ * New edges always connect node with one of its nearest nodes. When local optimum is reached, it's perturbed by
+ * random double-bridge kick of short segments and optimised again. Result of kick is kept, if it's not longer than the
+ * route before the kick, else all reversals done since the kick are undone.
+ * <p>
+ * Search can start from route of any construction heuristic or polish the best route of {@link SaForTsp}. Route is
+ * kept in {@link ArrayTour} for small instances and in {@link TwoLevelListTour} for large ones. Matrix is expected to
+ * be symmetric.
+ */
+public class IteratedLinKernighan {
+    private static final int MAX_DEPTH = 5;          // max count of 2-opt moves of Lin-Kernighan step
+    private static final int MAX_SEGMENT = 3;        // max count of nodes moved by Or-opt move
+    private static final int MAX_KICK_SEGMENT = 50;  // max count of nodes of each segment swapped by kick
+    static final int TWO_LEVEL_THRESHOLD = 2000;     // routes with at least this count of nodes use two-level list
+
+    private final int n;                  // nodes count
+    private final IDistanceMatrix dij;    // matrix of distances between each pair of nodes
+    private final CandidateLists cand;    // nearest nodes of each node
+    private final ITour tour;             // current route, it's the best found route outside of solving
+    private final Random rand;
+    private final int[] queue;            // circular queue of nodes, whose don't-look bit is off
+    private final boolean[] queued;       // queued[node] is true, if don't-look bit of node is off
+    private int head;                     // index of the first node in queue
+    private int count;                    // count of nodes in queue
+    private boolean reversed;             // route is traversed against orientation of tour
+    private int[] log = new int[3 * 256]; // applied reversals (from, to, predecessor), which may be undone
+    private int logSize;                  // count of used elements of log
+    private boolean keepLog;              // reversals are kept in log after successful step (during kick)
+    private final int[] added = new int[2 * MAX_DEPTH]; // edges added by current Lin-Kernighan step
+    private final int[] segment = new int[MAX_SEGMENT]; // nodes of segment moved by Or-opt
+    private int length;                   // length of current route
+    private final int initialLength;      // length of starting route
+    private int localOptimumLength;       // length of the first local optimum
+    private double expiration = 60;       // time limit in seconds
+    private long maxKicks = Long.MAX_VALUE; // solving stops after this count of kicks
+    private ILowerBound lowerBound;       // source of lower bound of optimal route length, null if it's not known
+    private double maxGap;                // solving stops when relative gap to lower bound is not greater
+    private long kicks;                   // count of kicks of the last solving
+    private long improvingKicks;          // count of kicks, which led to shorter route
+    private long solvingNanos;            // duration of the last solving
+
+    /**
+     * @param initialPath valid path of Traveling Salesman (e.g. solution of {@link contracts.ITspHeuristic}), it's
+     *                    copied
+     * @param distanceMatrix symmetric matrix of distances
+     * @param candidates nearest nodes of each node, from which new edges are chosen
+     * @param seed seed of random kicks
+     */
+    public IteratedLinKernighan(int[] initialPath, IDistanceMatrix distanceMatrix, CandidateLists candidates,
+                                long seed) {
+        if (initialPath == null)
+            throw new NullPointerException("Path of TSP not provided");
+        if (distanceMatrix == null)
+            throw new NullPointerException("Distance matrix not provided");
+        if (candidates == null)
+            throw new NullPointerException("Candidate lists not provided");
+        if (initialPath.length < 9)
+            throw new IllegalArgumentException("Lin-Kernighan search requires route of at least 8 nodes");
+        if (initialPath.length - 1 != distanceMatrix.getNodesCount() || candidates.getNodesCount() != distanceMatrix.getNodesCount())
+            throw new IllegalArgumentException("Mismatch between path nodes count and matrix nodes count");
+
+        this.n = initialPath.length - 1;
+        this.dij = distanceMatrix;
+        this.cand = candidates;
+        this.tour = (this.n >= TWO_LEVEL_THRESHOLD) ? new TwoLevelListTour(initialPath)
+                : new ArrayTour(initialPath.clone());
+        this.rand = new Random(seed);
+        this.queue = new int[this.n];
+        this.queued = new boolean[this.n];
+        for (int i = 0; i < this.n; i++) {
+            this.length += this.dij.getDistance(initialPath[i], initialPath[i + 1]);
+        }
+        this.initialLength = this.length;
+        this.localOptimumLength = this.length;
+    }
+
+    /**
+     * @param seconds time limit of solving (60 s by default)
+     */
+    public void setTimeLimit(double seconds) {
+        if (seconds <= 0)
+            throw new IllegalArgumentException("Time limit must be positive");
+        this.expiration = seconds;
+    }
+
+    /**
+     * @param kicks solving stops after this count of kicks, 0 stops it in the first local optimum
+     */
+    public void setMaxKicks(long kicks) {
+        if (kicks < 0)
+            throw new IllegalArgumentException("Count of kicks must not be negative");
+        this.maxKicks = kicks;
+    }
+
+    /**
+     * @param bound source of lower bound of optimal route length, <code>null</code> to disable the gap criterion
+     * @param epsilon solving stops as soon as <code>(best - bound) / bound</code> is not greater than
+     *                <code>epsilon</code>
+     */
+    public void setGapLimit(ILowerBound bound, double epsilon) {
+        if (epsilon < 0)
+            throw new IllegalArgumentException("Gap limit must not be negative");
+        this.lowerBound = bound;
+        this.maxGap = epsilon;
+    }
+
+    /**
+     * Optimises current route to local optimum, then kicks and optimises it again until a limit is reached. Solving
+     * may be repeated, it continues from the best route found so far.
+     */
+    public void solve() {
+        long start = System.nanoTime();
+        long deadline = start + (long) (this.expiration * 1e9);
+        this.logSize = 0;
+        this.keepLog = false;
+        int[] route = this.tour.getRoute();
+        for (int k = 0; k < this.n; k++) {
+            this.enqueue(route[k]);
+        }
+        this.optimize();
+        this.localOptimumLength = this.length;
+        this.keepLog = true;
+        this.kicks = 0;
+        this.improvingKicks = 0;
+        while (this.kicks < this.maxKicks && System.nanoTime() - deadline < 0
+                && !SaForTsp.isGapClosed(this.length, this.lowerBound, this.maxGap)) {
+            int before = this.length;
+            this.logSize = 0;
+            this.kick();
+            this.optimize();
+            this.kicks++;
+            if (this.length < before) {
+                this.improvingKicks++;
+            } else if (this.length > before) { // return to the route before the kick
+                this.undo(0);
+                this.length = before;
+            }
+        }
+        this.keepLog = false;
+        this.logSize = 0;
+        this.solvingNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Applies improving moves from given nodes and from nodes whose edges change meanwhile, until local optimum is
+     * reached, without kicks. It's much cheaper than <code>solve()</code>, when only part of route is expected to
+     * improve (e.g. around joints of routes of clusters).
+     * @return length of optimised route
+     */
+    public int optimizeAround(int[] nodes) {
+        long start = System.nanoTime();
+        this.logSize = 0;
+        this.keepLog = false;
+        for (int node : nodes) {
+            this.enqueue(node);
+        }
+        this.optimize();
+        this.solvingNanos = System.nanoTime() - start;
+        return this.length;
+    }
+
+    /**
+     * @return copy of the best found path of Traveling Salesman, first and last node is the same node.
+     */
+    public int[] getBestRoute() {
+        return this.tour.getRoute().clone();
+    }
+
+    public int getBestRouteLength() {
+        return this.length;
+    }
+
+    /**
+     * @return count of kicks of the last solving.
+     */
+    public long getKicks() {
+        return this.kicks;
+    }
+
+    /**
+     * @return count of kicks of the last solving, which led to shorter route.
+     */
+    public long getImprovingKicks() {
+        return this.improvingKicks;
+    }
+
+    public void printSolution() {
+        int[] x = this.tour.getRoute();
+        System.out.print(" - - -\nTSP iterated Lin-Kernighan:\n  x = (");
+        for (int i = 0; i < (x.length - 1); i++) {
+            if (i != 0 && i % 22 == 0)
+                System.out.print("\n      ");
+            System.out.printf("%d, ", x[i]);
+        }
+        System.out.printf("%d)\n", x[0]);
+        System.out.println("  * length of best found route: " + this.length);
+        System.out.println("  * starting route: " + this.initialLength + ", first local optimum: "
+                + this.localOptimumLength);
+        System.out.printf("  * kicks: %d (%d improving) in %.1f ms%n", this.kicks, this.improvingKicks,
+                this.solvingNanos / 1e6);
+        if (this.lowerBound != null && this.lowerBound.getLowerBound() > 0) {
+            int lb = this.lowerBound.getLowerBound();
+            System.out.printf("  * lower bound: %d (gap %.2f %%)%n", lb, 100.0 * (this.length - lb) / lb);
+        }
+    }
+
+    /**
+     * Applies improving moves from queued nodes until queue is empty.
+     */
+    private void optimize() {
+        while (this.count > 0) {
+            int t1 = this.queue[this.head];
+            this.head = (this.head + 1 == this.n) ? 0 : this.head + 1;
+            this.count--;
+            this.queued[t1] = false;
+            int logBase = this.logSize;
+            int gain = this.improveFrom(t1);
+            if (gain > 0) {
+                this.length -= gain;
+                this.enqueue(t1);
+                // end nodes of reversed paths and their neighbours got new edges
+                for (int e = logBase; e < this.logSize; e += 3) {
+                    this.enqueueWithNeighbours(this.log[e]);
+                    this.enqueueWithNeighbours(this.log[e + 1]);
+                }
+            }
+            if (!this.keepLog)
+                this.logSize = 0;
+        }
+    }
+
+    /**
+     * Tries Lin-Kernighan step and Or-opt from node <code>t1</code> in both directions of route, the first improving
+     * move is applied.
+     * @return gain of applied move, 0 if none was found
+     */
+    private int improveFrom(int t1) {
+        for (int direction = 0; direction < 2; direction++) {
+            int gain = this.improveLinKernighan(t1);
+            if (gain == 0)
+                gain = this.improveOrOpt(t1);
+            if (gain > 0)
+                return gain;
+            this.reversed = !this.reversed; // the same moves from predecessor of t1
+        }
+        return 0;
+    }
+
+    /**
+     * Lin-Kernighan step breaking edge <code>(t1, succ(t1))</code>. Each choice of the first new edge is tried, the
+     * rest of the chain is chosen greedily.
+     * @return gain of applied chain, 0 if no chain improves route
+     */
+    private int improveLinKernighan(int t1) {
+        int t2 = this.succ(t1);
+        int g0 = this.dij.getDistance(t1, t2);
+        for (int r = 0; r < this.cand.getK(); r++) {
+            int t3 = this.cand.getNeighbour(t2, r);
+            if (g0 - this.dij.getDistance(t2, t3) <= 0) // lists are ordered, no further neighbour can bring gain
+                return 0;
+            if (t3 == t1 || t3 == this.succ(t2))
+                continue;
+            int gain = this.chain(t1, t2, t3, g0);
+            if (gain > 0)
+                return gain;
+        }
+        return 0;
+    }
+
+    /**
+     * Applies chain of 2-opt moves. Move replaces open edge <code>(t1, t2)</code> and edge <code>(t4, t3)</code>,
+     * where <code>t4 = pred(t3)</code>, by new edge <code>(t2, t3)</code> and open edge <code>(t1, t4)</code>, which
+     * is broken by the next move. Next <code>t3</code> maximises <code>d(t4, t3) - d(t2, t3)</code> among nearest
+     * nodes of <code>t2</code> with positive partial gain. Moves after the best closed route are undone.
+     * @param g0 length of open edge
+     * @return gain of the best closed route of the chain, 0 if none improves route
+     */
+    private int chain(int t1, int t2, int t3, int g0) {
+        int logBase = this.logSize;
+        int g = g0;           // partial gain - removed minus added edges except open edge
+        int bestGain = 0;
+        int bestDepth = 0;
+        int depth = 0;
+        while (true) {
+            int t4 = this.pred(t3);
+            this.added[2 * depth] = t2;
+            this.added[2 * depth + 1] = t3;
+            this.reverseLogical(t2, t4); // t1 t4 ... t2 t3
+            g += this.dij.getDistance(t4, t3) - this.dij.getDistance(t2, t3);
+            depth++;
+            int gain = g - this.dij.getDistance(t4, t1);
+            if (gain > bestGain) {
+                bestGain = gain;
+                bestDepth = depth;
+            }
+            if (depth == MAX_DEPTH)
+                break;
+            t2 = t4;
+            int next = -1;
+            int bestLook = Integer.MIN_VALUE;
+            for (int r = 0; r < this.cand.getK(); r++) {
+                int c = this.cand.getNeighbour(t2, r);
+                int dc = this.dij.getDistance(t2, c);
+                if (g - dc <= 0)
+                    break;
+                if (c == t1 || c == this.succ(t2))
+                    continue;
+                int c4 = this.pred(c);
+                if (this.isAdded(c4, c, depth)) // added edge must not be broken again
+                    continue;
+                int look = this.dij.getDistance(c4, c) - dc;
+                if (look > bestLook) {
+                    bestLook = look;
+                    next = c;
+                }
+            }
+            if (next < 0)
+                break;
+            t3 = next;
+        }
+        this.undo(logBase + 3 * bestDepth);
+        return bestGain;
+    }
+
+    /**
+     * @return <code>true</code> if edge <code>(a, b)</code> is one of the first <code>depth</code> edges added by
+     * current chain.
+     */
+    private boolean isAdded(int a, int b, int depth) {
+        for (int k = 0; k < depth; k++) {
+            int x = this.added[2 * k];
+            int y = this.added[2 * k + 1];
+            if ((x == a && y == b) || (x == b && y == a))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tries to move segment beginning in <code>s1</code> next to one of nearest nodes of its end nodes.
+     * @return gain of applied move, 0 if none improves route
+     */
+    private int improveOrOpt(int s1) {
+        int p = this.pred(s1);
+        int s2 = s1;
+        for (int len = 1; len <= MAX_SEGMENT; len++) {
+            if (len > 1)
+                s2 = this.succ(s2);
+            this.segment[len - 1] = s2;
+            int q = this.succ(s2);
+            int removeGain = this.dij.getDistance(p, s1) + this.dij.getDistance(s2, q) - this.dij.getDistance(p, q);
+            if (removeGain <= 0)
+                continue;
+            for (int end = 0; end < 2; end++) {
+                int e = (end == 0) ? s1 : s2; // end node of segment connected to nearest node
+                int o = (end == 0) ? s2 : s1; // the other end node
+                for (int r = 0; r < this.cand.getK(); r++) {
+                    int c = this.cand.getNeighbour(e, r);
+                    int dc = this.dij.getDistance(e, c);
+                    if (dc >= removeGain)
+                        break;
+                    if (this.inSegment(c, len))
+                        continue;
+                    int y = this.succ(c); // route c e ... o y
+                    if (!this.inSegment(y, len)) {
+                        int gain = removeGain - dc - this.dij.getDistance(o, y) + this.dij.getDistance(c, y);
+                        if (gain > 0) {
+                            this.moveSegment(s1, s2, q, c, y, e == s2);
+                            return gain;
+                        }
+                    }
+                    int x = this.pred(c); // route x o ... e c
+                    if (!this.inSegment(x, len)) {
+                        int gain = removeGain - dc - this.dij.getDistance(x, o) + this.dij.getDistance(x, c);
+                        if (gain > 0) {
+                            this.moveSegment(s1, s2, q, x, c, e == s1);
+                            return gain;
+                        }
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    private boolean inSegment(int node, int len) {
+        for (int k = 0; k < len; k++) {
+            if (this.segment[k] == node)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves segment <code>s1 ... s2</code> followed by <code>q</code> between nodes <code>x</code> and
+     * <code>y = succ(x)</code> by three reversals.
+     * @param reversedOrder <code>true</code> to insert segment as <code>x s2 ... s1 y</code>
+     */
+    private void moveSegment(int s1, int s2, int q, int x, int y, boolean reversedOrder) {
+        this.reverseLogical(s1, x);     // p x ... q s2 ... s1 y
+        if (x != q)
+            this.reverseLogical(x, q);  // p q ... x s2 ... s1 y
+        if (!reversedOrder && s1 != s2)
+            this.reverseLogical(s2, s1); // x s1 ... s2 y
+    }
+
+    /**
+     * Double-bridge kick - route <code>a B C d</code>, where segments <code>B</code> and <code>C</code> have at most
+     * {@value #MAX_KICK_SEGMENT} nodes, is changed to <code>a C B d</code>. End nodes of segments are queued.
+     */
+    private void kick() {
+        int maxSegment = Math.min(MAX_KICK_SEGMENT, (this.n - 2) / 3);
+        int a = this.rand.nextInt(this.n);
+        int b1 = this.succ(a);
+        int b2 = this.walk(b1, this.rand.nextInt(maxSegment));
+        int c1 = this.succ(b2);
+        int c2 = this.walk(c1, this.rand.nextInt(maxSegment));
+        int d1 = this.succ(c2);
+        this.length += this.dij.getDistance(a, c1) + this.dij.getDistance(c2, b1) + this.dij.getDistance(b2, d1)
+                - this.dij.getDistance(a, b1) - this.dij.getDistance(b2, c1) - this.dij.getDistance(c2, d1);
+        this.reverseLogical(b1, c2);     // a c2 ... c1 b2 ... b1 d1
+        if (c1 != c2)
+            this.reverseLogical(c2, c1); // a c1 ... c2 b2 ... b1 d1
+        if (b1 != b2)
+            this.reverseLogical(b2, b1); // a c1 ... c2 b1 ... b2 d1
+        this.enqueue(a);
+        this.enqueue(b1);
+        this.enqueue(b2);
+        this.enqueue(c1);
+        this.enqueue(c2);
+        this.enqueue(d1);
+    }
+
+    private int walk(int node, int steps) {
+        for (int k = 0; k < steps; k++) {
+            node = this.succ(node);
+        }
+        return node;
+    }
+
+    private int succ(int node) {
+        return this.reversed ? this.tour.prev(node) : this.tour.next(node);
+    }
+
+    private int pred(int node) {
+        return this.reversed ? this.tour.next(node) : this.tour.prev(node);
+    }
+
+    /**
+     * Reverses path going from <code>a</code> to <code>b</code> in direction of route and records it to log together
+     * with predecessor of the reversed path.
+     */
+    private void reverseLogical(int a, int b) {
+        int p = this.reversePath(a, b);
+        if (this.logSize == this.log.length)
+            this.log = Arrays.copyOf(this.log, 2 * this.log.length);
+        this.log[this.logSize++] = a;
+        this.log[this.logSize++] = b;
+        this.log[this.logSize++] = p;
+    }
+
+    /**
+     * Reverses path going from <code>a</code> to <code>b</code> in direction of route. Tour may reverse the rest of
+     * the cycle instead, so direction of route is fixed to keep predecessor of <code>a</code> followed by
+     * <code>b</code>.
+     * @return predecessor of the path
+     */
+    private int reversePath(int a, int b) {
+        int p = this.pred(a);
+        if (this.reversed)
+            this.tour.reverse(b, a);
+        else
+            this.tour.reverse(a, b);
+        if (this.succ(p) != b)
+            this.reversed = !this.reversed;
+        return p;
+    }
+
+    /**
+     * Undoes logged reversals in opposite order until log has <code>size</code> elements.
+     */
+    private void undo(int size) {
+        while (this.logSize > size) {
+            int p = this.log[--this.logSize];
+            int b = this.log[--this.logSize];
+            int a = this.log[--this.logSize];
+            if (this.pred(b) == p) // path is p b ... a in direction of route
+                this.reversePath(b, a);
+            else                   // direction of route has changed since, path is a ... b p
+                this.reversePath(a, b);
+        }
+    }
+
+    private void enqueue(int node) {
+        if (this.queued[node])
+            return;
+        int tail = this.head + this.count;
+        this.queue[(tail >= this.n) ? tail - this.n : tail] = node;
+        this.queued[node] = true;
+        this.count++;
+    }
+
+    private void enqueueWithNeighbours(int node) {
+        this.enqueue(node);
+        this.enqueue(this.tour.next(node));
+        this.enqueue(this.tour.prev(node));
+    }
+}
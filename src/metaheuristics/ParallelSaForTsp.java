@@ -0,0 +1,256 @@
+package metaheuristics;
+
+import contracts.IAnnealingListener;
+import contracts.ILowerBound;
+import contracts.ITspChainOperationFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Simulated Annealing for Traveling Salesman Problem running several independent chains of {@link SaForTsp} in
+ * parallel. Chains are executed in epochs, each epoch consists of fixed count of annealing cycles of every chain.
+ * Best found route is published to shared incumbent without locking and, in island mode, after each epoch every chain
+ * whose current route is worse than incumbent continues from incumbent.
+ * <p>
+ * Random streams of chains are split from one master seed, so the result is reproducible for given master seed and
+ * count of chains, as long as solving is not interrupted by time limit or target length in the middle of an epoch.
+ */
+public class ParallelSaForTsp {
+    /**
+     * Immutable best found route together with its length and index of chain which found it.
+     */
+    public static final class Incumbent {
+        private final int[] route;
+        private final int length;
+        private final int chain;
+
+        Incumbent(int[] route, int length, int chain) {
+            this.route = route;
+            this.length = length;
+            this.chain = chain;
+        }
+
+        /**
+         * @return copy of best found path, first and last node is the same (starting) node.
+         */
+        public int[] getRoute() {
+            return this.route.clone();
+        }
+
+        public int getLength() {
+            return this.length;
+        }
+
+        public int getChain() {
+            return this.chain;
+        }
+
+        /**
+         * Ties in length are resolved by lower index of chain, so incumbent does not depend on order of publishing.
+         */
+        boolean isBetterThan(Incumbent other) {
+            return other == null || this.length < other.length || (this.length == other.length && this.chain < other.chain);
+        }
+    }
+
+    private final SaForTsp[] chains;
+    private final AtomicReference<Incumbent> incumbent = new AtomicReference<>();
+    private int cyclesPerEpoch = 4;    // annealing cycles of each chain between synchronisations
+    private boolean islands = true;    // whether chains continue from incumbent after each epoch
+    private int maxIdleEpochs = 10;    // solving stops after this count of epochs in a row without any improvement
+    private int targetLength = 0;      // solving stops when incumbent is not longer than this length
+    private ILowerBound lowerBound;    // source of lower bound of optimal route length, null if it's not known
+    private double maxGap;             // solving stops when relative gap of incumbent to lower bound is not greater
+    private volatile boolean targetReached;
+
+    /**
+     * @param initialPath valid path of Traveling Salesman, from which all chains start
+     * @param chainOperations factory of primary heuristic, each chain gets its own instance
+     * @param chainsCount count of annealing chains, each of them runs in its own thread
+     * @param masterSeed seed from which random streams of all chains are derived
+     */
+    public ParallelSaForTsp(int[] initialPath, ITspChainOperationFactory chainOperations, int chainsCount, long masterSeed) {
+        if (initialPath == null)
+            throw new NullPointerException("Path of TSP not provided");
+        if (chainOperations == null)
+            throw new NullPointerException("Chain operations factory not provided");
+        if (chainsCount < 1)
+            throw new IllegalArgumentException("At least one chain is required");
+        SplittableRandom master = new SplittableRandom(masterSeed);
+        this.chains = new SaForTsp[chainsCount];
+        for (int c = 0; c < chainsCount; c++) {
+            SplittableRandom stream = master.split();
+            long operationSeed = stream.nextLong();
+            this.chains[c] = new SaForTsp(chainOperations.create(initialPath.clone(), operationSeed), stream.nextLong());
+        }
+    }
+
+    /**
+     * @param seconds time limit of solving, shared by all chains
+     */
+    public void setTimeLimit(double seconds) {
+        for (SaForTsp chain : this.chains) {
+            chain.setTimeLimit(seconds);
+        }
+    }
+
+    /**
+     * @param listener thread-safe observer of progress of all chains, <code>null</code> to disable telemetry
+     * @param sampleInterval count of transits of each chain between its samples
+     */
+    public void setListener(IAnnealingListener listener, long sampleInterval) {
+        for (SaForTsp chain : this.chains) {
+            chain.setListener(listener, sampleInterval);
+        }
+    }
+
+    /**
+     * @param cycles count of annealing cycles of each chain between publishing to and restarting from incumbent
+     */
+    public void setCyclesPerEpoch(int cycles) {
+        if (cycles < 1)
+            throw new IllegalArgumentException("Epoch consists of at least one cycle");
+        this.cyclesPerEpoch = cycles;
+    }
+
+    /**
+     * @param enabled <code>true</code> if chains should continue from incumbent after each epoch (island model),
+     *                <code>false</code> for fully independent chains
+     */
+    public void setIslands(boolean enabled) {
+        this.islands = enabled;
+    }
+
+    /**
+     * @param epochs solving stops after this count of epochs in a row, in which no chain improved its best route
+     */
+    public void setMaxIdleEpochs(int epochs) {
+        if (epochs < 1)
+            throw new IllegalArgumentException("At least one idle epoch must be allowed");
+        this.maxIdleEpochs = epochs;
+    }
+
+    /**
+     * @param length solving stops as soon as some chain finds route which is not longer than <code>length</code>
+     */
+    public void setTargetLength(int length) {
+        this.targetLength = length;
+    }
+
+    /**
+     * @param bound source of lower bound of optimal route length, <code>null</code> to disable the gap criterion
+     * @param epsilon solving stops as soon as relative gap between incumbent and <code>bound</code> is not greater
+     */
+    public void setGapLimit(ILowerBound bound, double epsilon) {
+        if (epsilon < 0)
+            throw new IllegalArgumentException("Gap limit must not be negative");
+        this.lowerBound = bound;
+        this.maxGap = epsilon;
+    }
+
+    public void solve() {
+        ExecutorService pool = Executors.newFixedThreadPool(this.chains.length);
+        try {
+            List<Callable<Integer>> epoch = new ArrayList<>(this.chains.length);
+            for (int c = 0; c < this.chains.length; c++) {
+                final int chainIdx = c;
+                this.chains[c].prepare();
+                this.publish(chainIdx);
+                epoch.add(() -> this.runEpoch(chainIdx));
+            }
+            int idleEpochs = 0;
+            while (true) {
+                int improvements = 0;
+                for (Future<Integer> result : pool.invokeAll(epoch)) {
+                    improvements += result.get();
+                }
+                idleEpochs = (improvements == 0) ? idleEpochs + 1 : 0;
+                if (idleEpochs == this.maxIdleEpochs || this.targetReached || this.chains[0].isExpired()
+                        || SaForTsp.isGapClosed(this.incumbent.get().length, this.lowerBound, this.maxGap))
+                    break;
+                if (this.islands) {
+                    Incumbent best = this.incumbent.get();
+                    for (SaForTsp chain : this.chains) {
+                        if (chain.getCurrentRouteLength() > best.length)
+                            chain.restartFrom(best.route);
+                    }
+                }
+            }
+            for (SaForTsp chain : this.chains) {
+                chain.reportSample();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Annealing chain failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return best route found so far by any chain, <code>null</code> before solving starts. It can be called from any
+     * thread while solving is in progress.
+     */
+    public Incumbent getIncumbent() {
+        return this.incumbent.get();
+    }
+
+    public void printSolution() {
+        Incumbent best = this.incumbent.get();
+        System.out.print(" - - -\nTSP parallel simulated annealing (" + this.chains.length + " chains):\n  x = (");
+        for (int i = 0; i < (best.route.length - 1); i++) {
+            if (i != 0 && i % 22 == 0)
+                System.out.print("\n      ");
+            System.out.printf("%d, ", best.route[i]);
+        }
+        System.out.printf("%d)\n", best.route[0]);
+        System.out.println("  * length of best found route: " + best.length + " (chain " + best.chain + ")");
+        if (this.lowerBound != null && this.lowerBound.getLowerBound() > 0) {
+            int lb = this.lowerBound.getLowerBound();
+            System.out.printf("  * lower bound: %d (gap %.2f %%)%n", lb, 100.0 * (best.length - lb) / lb);
+        }
+    }
+
+    /**
+     * Executes annealing cycles of one epoch of chain with index <code>chainIdx</code>.
+     * @return count of improvements of the best route of chain within the epoch
+     */
+    private int runEpoch(int chainIdx) {
+        SaForTsp chain = this.chains[chainIdx];
+        int improvements = 0;
+        for (int i = 0; i < this.cyclesPerEpoch && !this.targetReached && !chain.isExpired(); i++) {
+            int v = chain.annealCycle();
+            if (v > 0) {
+                improvements += v;
+                this.publish(chainIdx);
+            }
+        }
+        return improvements;
+    }
+
+    /**
+     * Offers the best route of chain to shared incumbent, it replaces incumbent only if it's better.
+     */
+    private void publish(int chainIdx) {
+        SaForTsp chain = this.chains[chainIdx];
+        Incumbent candidate = new Incumbent(chain.getBestRoute().clone(), chain.getBestRouteLength(), chainIdx);
+        Incumbent current;
+        do {
+            current = this.incumbent.get();
+            if (!candidate.isBetterThan(current))
+                return;
+        } while (!this.incumbent.compareAndSet(current, candidate));
+        if (candidate.length <= this.targetLength
+                || SaForTsp.isGapClosed(candidate.length, this.lowerBound, this.maxGap))
+            this.targetReached = true;
+    }
+}
@@ -1,70 +1,744 @@
 package metaheuristics;
 
+import checkpoint.CheckpointFile;
+import contracts.IAnnealingListener;
+import contracts.IBatchChainOperation;
+import contracts.ICheckpointable;
+import contracts.ILowerBound;
 import contracts.ITspChainOperation;
+import metaheuristics.AnnealingRun.Snapshot;
 
-import java.util.Calendar;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Meta heuristic Simulated Annealing for Traveling Salesman Problem.
+ * <p>
+ * Long solving can be checkpointed (see {@link #setCheckpoint(File, double)}) and resumed from checkpoint by
+ * {@link #resume(File, ITspChainOperation)} after restart of process. Resumed annealing continues with exactly the
+ * same transits as annealing, which wrote the checkpoint, when it's configured the same way.
  */
 public class SaForTsp {
+    /**
+     * Way of examining solutions from surrounding, when primary heuristic generates them in batches.
+     */
+    public enum BatchMode {
+        /** solutions are generated one by one */
+        NONE,
+        /** solutions of batch are examined in order, the first accepted one is applied and the rest is discarded */
+        FIRST_ACCEPTING,
+        /** only the best solution of batch is examined */
+        BEST_OF_BATCH
+    }
+
     private static final int T_MAX = 10_000; // max temperature
     private static final int U = 40; // max examined transits count from transit to current solution
     private static final int Q = 50; // max examined transits from last temperature change
+    private static final double BETA = 0.5; // parameter of temperature lowering
+    private static final int CLOCK_CHECK_INTERVAL = 1024; // time limit is checked once per this count of transits
+    private static final int CHECKPOINT_MAGIC = 0x5453504B; // "TSPK"
+    private static final int CHECKPOINT_VERSION = 1;
     private Random rand;
     private ITspChainOperation heuristic; // primary heuristic algorithm for modifying sequence of nodes in path
     private int bestRouteLength; // function value of x variable (best found path)
     private int routeLength;     // function value of current (x_i) variable
     private int[] x;      // best found path of Traveling Salesman
+    private boolean bestPending;         // current route is the best found one, but it's not copied to x yet
+    private double expiration = 60 * 5; // time limit in seconds (=5min)
+    private int initialTemperature = T_MAX; // temperature at the start of each cycle
+    private long startNanos;             // time of the start of solving
+    private long deadlineNanos;          // time when time limit expires, without extensions
+    private final AtomicLong deadlineExtension = new AtomicLong(); // extension of time limit by asynchronous run
+    private volatile boolean cancelled;  // solving was cancelled by other thread
+    private long transits;               // count of examined transits from the start of solving
+    private long transitLimit = Long.MAX_VALUE; // solving stops after this count of examined transits
+    private long nextCheck;              // count of transits, after which limits of solving are checked again
+    private int maxIdleCycles = 1;       // solving stops after this count of cycles in a row without improvement
+    private long solvingNanos;           // duration of last finished solving
+    private ILowerBound lowerBound;      // source of lower bound of optimal route length, null if it's not known
+    private double maxGap;               // solving stops when relative gap to lower bound is not greater
+    private BatchMode batchMode = BatchMode.NONE;
+    private IBatchChainOperation batchHeuristic; // primary heuristic generating batches, null if mode is NONE
+    private int[] batchLengths;          // route lengths of solutions of the last batch
+    private long acceptedImproving;      // count of accepted transits, which didn't make current route longer
+    private long acceptedWorsening;      // count of accepted transits, which made current route longer
+    // v--<-- telemetry, used only when listener is set
+    private IAnnealingListener listener;
+    private long sampleInterval;         // count of transits between samples
+    private long nextSample = Long.MAX_VALUE; // count of transits, after which next sample is taken
+    private long sampledTransits, sampledImproving, sampledWorsening; // counters at the time of the last sample
+    private int temperature;             // current temperature
+    private long levelStartNanos;        // time when current temperature level began
+    // v--<-- asynchronous solving, used only when run is set
+    private AnnealingRun run;            // handle of asynchronous solving
+    private long publishIntervalNanos;   // minimal time between snapshots of improved best route
+    private long nextPublishNanos;       // time, after which next snapshot may be published
+    private int publishedLength;         // length of route of the latest snapshot
+    // v--<-- checkpoints, used only when checkpoint file is set
+    private File checkpointFile;         // file where state of annealing is written, null if disabled
+    private ICheckpointable checkpointable; // primary heuristic writing its state, null if checkpoints are disabled
+    private long checkpointIntervalNanos; // minimal time between checkpoints
+    private CheckpointFile checkpoints;  // asynchronous writer of checkpoints during solving
+    private long nextCheckpointNanos;    // time, after which next checkpoint is written
+    private boolean checkpointDue;       // checkpoint is written at the end of current transit
+    private int writtenCheckpoints;      // count of checkpoints written during the last solving
+    private IOException checkpointFailure; // failure of writing of the last checkpoint
+    private int idleCycles;              // count of cycles in a row without improvement of the best found route
+    private boolean resumed;             // state was restored from checkpoint and solving didn't start yet
+    private long resumedNanos;           // duration of solving before checkpoint
+    private int resumedT, resumedR, resumedW, resumedV; // state of annealing cycle at the time of checkpoint
 
 
     public SaForTsp(ITspChainOperation chainOperation) {
+        this(chainOperation, 25);
+    }
+
+    /**
+     * @param chainOperation primary heuristic modifying current route
+     * @param seed seed of random numbers generator deciding about acceptance of worse solutions
+     */
+    public SaForTsp(ITspChainOperation chainOperation, long seed) {
         if (chainOperation == null)
             throw new NullPointerException("Chain operation not provided");
         this.heuristic = chainOperation;
-        this.rand = new Random(25);
+        this.rand = new Random(seed);
+    }
+
+    /**
+     * @param seconds time limit of solving
+     */
+    public void setTimeLimit(double seconds) {
+        if (seconds <= 0)
+            throw new IllegalArgumentException("Time limit must be positive");
+        this.expiration = seconds;
+    }
+
+    /**
+     * @param temperature temperature at the start of each annealing cycle (10 000 by default), low
+     *                    temperature keeps annealing close to already good route (e.g. when it's re-optimised)
+     */
+    public void setInitialTemperature(int temperature) {
+        if (temperature < 1)
+            throw new IllegalArgumentException("Initial temperature must be positive");
+        this.initialTemperature = temperature;
+    }
+
+    /**
+     * @param limit solving stops after examining this count of transits (solutions from surrounding), it's checked
+     *              after each batch when solutions are generated in batches
+     */
+    public void setTransitLimit(long limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Transit limit must be positive");
+        this.transitLimit = limit;
+    }
+
+    /**
+     * @param cycles solving stops after this count of annealing cycles in a row, which didn't improve the best found
+     *               route (1 by default)
+     */
+    public void setMaxIdleCycles(int cycles) {
+        if (cycles < 1)
+            throw new IllegalArgumentException("At least one idle cycle must be allowed");
+        this.maxIdleCycles = cycles;
+    }
+
+    /**
+     * @param bound source of lower bound of optimal route length (e.g. computed in parallel), <code>null</code> to
+     *              disable the gap criterion
+     * @param epsilon solving stops as soon as <code>(best - bound) / bound</code> is not greater than
+     *                <code>epsilon</code>, 0 stops it only when the best route is proven optimal
+     */
+    public void setGapLimit(ILowerBound bound, double epsilon) {
+        if (epsilon < 0)
+            throw new IllegalArgumentException("Gap limit must not be negative");
+        this.lowerBound = bound;
+        this.maxGap = epsilon;
+    }
+
+    /**
+     * @param mode way of examining batches of solutions, <code>NONE</code> or <code>null</code> to generate solutions
+     *             one by one
+     * @param batchSize count of solutions generated at once, at most <code>getMaxBatchSize()</code> of primary heuristic,
+     *                  which must be {@link IBatchChainOperation}
+     */
+    public void setBatchMode(BatchMode mode, int batchSize) {
+        if (mode == null)
+            mode = BatchMode.NONE;
+        if (mode != BatchMode.NONE) {
+            if (!(this.heuristic instanceof IBatchChainOperation))
+                throw new IllegalArgumentException(this.heuristic.getHeuristicName()
+                        + " doesn't generate solutions in batches");
+            IBatchChainOperation batchHeuristic = (IBatchChainOperation) this.heuristic;
+            if (batchSize < 1 || batchSize > batchHeuristic.getMaxBatchSize())
+                throw new IllegalArgumentException(this.heuristic.getHeuristicName() + " can't generate batches of "
+                        + batchSize + " solutions");
+            this.batchHeuristic = batchHeuristic;
+            this.batchLengths = new int[batchSize];
+        } else {
+            this.batchHeuristic = null;
+        }
+        this.batchMode = mode;
+    }
+
+    /**
+     * @param file file where state of annealing is written during solving, <code>null</code> to disable checkpoints.
+     *             Checkpoint is serialized by annealing thread and written to disk by another thread. Primary heuristic
+     *             must be {@link ICheckpointable}, which supports checkpoints.
+     * @param intervalSeconds minimal time between two checkpoints
+     */
+    public void setCheckpoint(File file, double intervalSeconds) {
+        if (file != null && !(intervalSeconds > 0))
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        this.checkpointable = (file != null) ? checkpointable(this.heuristic) : null;
+        this.checkpointFile = file;
+        this.checkpointIntervalNanos = (long) (intervalSeconds * 1e9);
+    }
+
+    /**
+     * Restores annealing from checkpoint written by annealing with checkpoints enabled. Time limit of solving includes
+     * time solved before checkpoint. Parameters of annealing (time and transit limit, batch mode, ...) are not part of
+     * checkpoint, they must be set the same way as for checkpointed annealing to continue with the same transits.
+     * @param checkpoint checkpoint file
+     * @param chainOperation primary heuristic created with the same distance matrix and parameters as primary heuristic
+     *                       of checkpointed annealing, its route and random state are replaced
+     * @return annealing, which continues from checkpoint on the next <code>solve()</code>
+     * @throws IOException if checkpoint can't be read, it's corrupted or it doesn't match primary heuristic
+     * @throws IllegalArgumentException if primary heuristic doesn't support checkpoints
+     */
+    public static SaForTsp resume(File checkpoint, ITspChainOperation chainOperation) throws IOException {
+        SaForTsp annealing = new SaForTsp(chainOperation);
+        ICheckpointable checkpointable = checkpointable(chainOperation);
+        try (DataInputStream in = CheckpointFile.read(checkpoint)) {
+            annealing.readCheckpoint(in, checkpointable);
+        }
+        return annealing;
+    }
+
+    /**
+     * @return <code>chainOperation</code> as operation, whose state can be written to checkpoint.
+     * @throws IllegalArgumentException if operation doesn't support checkpoints
+     */
+    private static ICheckpointable checkpointable(ITspChainOperation chainOperation) {
+        if (!(chainOperation instanceof ICheckpointable)
+                || !((ICheckpointable) chainOperation).supportsCheckpoints())
+            throw new IllegalArgumentException(chainOperation.getHeuristicName() + " doesn't support checkpoints");
+        return (ICheckpointable) chainOperation;
+    }
+
+    /**
+     * @param listener observer of progress of annealing, <code>null</code> to disable telemetry. When disabled,
+     *                 telemetry costs only incrementing of counters of accepted transits.
+     * @param sampleInterval count of transits between samples passed to <code>listener</code>
+     */
+    public void setListener(IAnnealingListener listener, long sampleInterval) {
+        if (listener != null && sampleInterval < 1)
+            throw new IllegalArgumentException("Sample interval must be positive");
+        this.listener = listener;
+        this.sampleInterval = sampleInterval;
     }
 
     public void solve() {
-        final double beta = 0.5;
-        final double expiration = 60 * 5; // =5min seconds
-        this.x = this.heuristic.getSolutionRoute().clone();
-        this.bestRouteLength = this.heuristic.getRouteLength();
-        this.routeLength = this.bestRouteLength;
-        long startSecs = Calendar.getInstance().getTimeInMillis() / 1000;
-        long endSecs = startSecs;
+        this.prepare();
+        if (this.run != null)
+            this.publishSnapshot();
+        this.writtenCheckpoints = 0;
+        this.checkpointFailure = null;
+        if (this.checkpointFile != null) {
+            this.checkpoints = new CheckpointFile(this.checkpointFile);
+            this.nextCheckpointNanos = System.nanoTime() + this.checkpointIntervalNanos;
+        }
+        try {
+            while (true) {
+                int v = this.annealCycle();
+                this.idleCycles = (v == 0) ? this.idleCycles + 1 : 0;
+                if (this.isExpired() || this.idleCycles == this.maxIdleCycles)
+                    break;
+            }
+        } finally {
+            this.closeCheckpoints();
+        }
+        this.storeBestRoute();
+        this.solvingNanos = System.nanoTime() - this.startNanos;
+        this.reportSample();
+        if (this.run != null) {
+            AnnealingRun run = this.run;
+            this.run = null;
+            run.complete(this.snapshot());
+        }
+    }
+
+    /**
+     * Starts solving in another thread and returns immediately. Snapshots of the best found route are published at
+     * most once per <code>publishIntervalSeconds</code>, so allocation of their copies doesn't slow annealing down.
+     * Solving ends as <code>solve()</code> does, unless it's cancelled or its time limit is extended through returned
+     * handle. Instance must not be used otherwise until the solving ends.
+     * @param executor executor running annealing, one of its threads is occupied for whole time of solving
+     * @param publishIntervalSeconds minimal time between snapshots of improved best route
+     * @return handle of solving
+     */
+    public AnnealingRun solveAsync(Executor executor, double publishIntervalSeconds) {
+        if (executor == null)
+            throw new NullPointerException("Executor not provided");
+        if (publishIntervalSeconds < 0)
+            throw new IllegalArgumentException("Publish interval must not be negative");
+        AnnealingRun run = new AnnealingRun(this);
+        this.run = run;
+        this.publishIntervalNanos = (long) (publishIntervalSeconds * 1e9);
+        this.cancelled = false;
+        this.deadlineExtension.set(0);
+        executor.execute(() -> {
+            try {
+                this.solve();
+            } catch (RuntimeException | Error e) {
+                this.run = null;
+                run.fail(e);
+                throw e;
+            }
+        });
+        return run;
+    }
+
+    /**
+     * Starts solving in new daemon thread, snapshots are published at most once per 50 ms.
+     * @see #solveAsync(Executor, double)
+     */
+    public AnnealingRun solveAsync() {
+        return this.solveAsync(task -> {
+            Thread thread = new Thread(task, "annealing");
+            thread.setDaemon(true);
+            thread.start();
+        }, 0.05);
+    }
+
+    /**
+     * @return best found path of Traveling Salesman, first and last node is the same (starting) node.
+     */
+    public int[] getBestRoute() {
+        this.storeBestRoute();
+        return this.x;
+    }
+
+    public int getBestRouteLength() {
+        return this.bestRouteLength;
+    }
+
+    /**
+     * @return count of solutions from surrounding examined from the start of solving.
+     */
+    public long getExaminedTransits() {
+        return this.transits;
+    }
+
+    /**
+     * @return count of accepted transits, which didn't make current route longer.
+     */
+    public long getAcceptedImproving() {
+        return this.acceptedImproving;
+    }
+
+    /**
+     * @return count of accepted transits, which made current route longer.
+     */
+    public long getAcceptedWorsening() {
+        return this.acceptedWorsening;
+    }
+
+    /**
+     * @return count of checkpoints written during the last solving.
+     */
+    public int getWrittenCheckpoints() {
+        return this.writtenCheckpoints;
+    }
+
+    /**
+     * @return failure of writing of the last checkpoint of the last solving, <code>null</code> if it was written.
+     */
+    public IOException getCheckpointFailure() {
+        return this.checkpointFailure;
+    }
+
+    /**
+     * @return length of current route of annealing, which may be worse than the best found one.
+     */
+    int getCurrentRouteLength() {
+        return this.routeLength;
+    }
+
+    /**
+     * Takes current route of primary heuristic as the best found one and starts measuring of time limit. After
+     * resuming from checkpoint, restored state is kept and time solved before checkpoint is counted in. Cancellation
+     * and extension of time limit of previous asynchronous solving are cleared, asynchronous solving keeps those, which
+     * arrived since <code>solveAsync</code> started it.
+     */
+    void prepare() {
+        if (this.run == null) {
+            this.cancelled = false;
+            this.deadlineExtension.set(0);
+        }
+        if (!this.resumed) {
+            this.x = this.heuristic.getSolutionRoute().clone();
+            this.bestRouteLength = this.heuristic.getRouteLength();
+            this.routeLength = this.bestRouteLength;
+            this.transits = 0;
+            this.acceptedImproving = 0;
+            this.acceptedWorsening = 0;
+            this.idleCycles = 0;
+            this.resumedNanos = 0;
+        }
+        this.bestPending = false;
+        this.sampledTransits = this.transits;
+        this.sampledImproving = this.acceptedImproving;
+        this.sampledWorsening = this.acceptedWorsening;
+        this.nextSample = (this.listener != null) ? this.transits + this.sampleInterval : Long.MAX_VALUE;
+        this.nextCheck = Math.min(Math.min(this.transits + CLOCK_CHECK_INTERVAL, this.transitLimit), this.nextSample);
+        this.startNanos = System.nanoTime() - this.resumedNanos;
+        this.deadlineNanos = this.startNanos + (long) (this.expiration * 1e9);
+    }
+
+    /**
+     * Executes one cycle of annealing. Cycle starts at maximal temperature and ends when <code>U</code> transits in a
+     * row were rejected or limits of solving were reached. Nothing is allocated within the cycle - time is checked only
+     * once per several transits and the best found route is copied only when annealing leaves it.
+     * @return count of improvements of the best found route within the cycle
+     */
+    int annealCycle() {
+        if (this.batchMode != BatchMode.NONE)
+            return this.annealCycleInBatches();
+        boolean resumed = this.takeResumed();
         int r;        // examined transits count from last transit to current solution
         int t;        // current temperature
-        int v = 0;    // annealing
-        while (true) {
-            t = T_MAX;
-            // examine transits from last temperature change
-            int w = 0;
-            r = 0;
-            v = 0; // annealing
-            while ((endSecs - startSecs) < expiration && r != U) {
+        int v;        // annealing
+        t = this.beginTemperatureLevel(resumed ? this.resumedT : this.initialTemperature);
+        // examine transits from last temperature change
+        int w = resumed ? this.resumedW : 0;
+        r = resumed ? this.resumedR : 0;
+        v = resumed ? this.resumedV : 0; // annealing
+        boolean expired = this.isExpired();
+        while (!expired && r != U) {
+            if (w == Q) {
+                t = this.lowerTemperature(t); // lower down temperature
+                w = 0;
+            }
+            int newRouteLen = this.heuristic.nextModification();
+            w++;
+            r++;
+            if ((newRouteLen <= this.routeLength) || this.shouldPass(newRouteLen, t)) { // is solution from surrounding accepted?
+                if (this.prepareTransit(newRouteLen))
+                    v++;
+                this.heuristic.applyModification(); // route modification
+                this.routeLength = newRouteLen;
+                r = 0;
+            }
+            if (++this.transits >= this.nextCheck) {
+                expired = this.checkLimits();
+                if (this.checkpointDue)
+                    this.writeCheckpoint(t, r, w, v);
+            }
+        }
+        this.endTemperatureLevel(w);
+        return v;
+    }
+
+    /**
+     * The same cycle of annealing as <code>annealCycle</code>, but solutions from surrounding are generated in
+     * batches. In mode <code>FIRST_ACCEPTING</code> each solution of batch is one examined transit, in mode
+     * <code>BEST_OF_BATCH</code> the whole batch is one transit to its best solution.
+     * @return count of improvements of the best found route within the cycle
+     */
+    private int annealCycleInBatches() {
+        final int batchSize = this.batchLengths.length;
+        final boolean bestOnly = (this.batchMode == BatchMode.BEST_OF_BATCH);
+        boolean resumed = this.takeResumed();
+        int r = resumed ? this.resumedR : 0; // examined transits count from last transit to current solution
+        int t = this.beginTemperatureLevel(resumed ? this.resumedT : this.initialTemperature); // current temperature
+        int v = resumed ? this.resumedV : 0; // annealing
+        int w = resumed ? this.resumedW : 0; // examined transits from last temperature change
+        boolean expired = this.isExpired();
+        while (!expired && r != U) {
+            this.batchHeuristic.nextModifications(this.batchLengths, batchSize);
+            this.transits += batchSize;
+            int from = 0;
+            int to = batchSize;
+            if (bestOnly) {
+                for (int b = 1; b < batchSize; b++) {
+                    if (this.batchLengths[b] < this.batchLengths[from])
+                        from = b;
+                }
+                to = from + 1;
+            }
+            for (int b = from; b < to && r != U; b++) {
                 if (w == Q) {
-                    t = (int) (t / (1.0 + beta * t)); // lower down temperature
+                    t = this.lowerTemperature(t); // lower down temperature
                     w = 0;
                 }
-                int newRouteLen = this.heuristic.nextModification();
+                int newRouteLen = this.batchLengths[b];
                 w++;
                 r++;
-                if ((newRouteLen <= this.routeLength) || this.shouldPass(newRouteLen, t)) { // is solution from surrounding accepted?
-                    this.heuristic.applyModification(); // route modification
-                    this.routeLength = newRouteLen;
-                    if (this.routeLength < this.bestRouteLength) {
-                        this.bestRouteLength = this.routeLength;
-                        this.x = this.heuristic.getSolutionRoute().clone();
+                if ((newRouteLen <= this.routeLength) || this.shouldPass(newRouteLen, t)) {
+                    if (this.prepareTransit(newRouteLen))
                         v++;
-                    }
+                    this.batchHeuristic.applyModification(b);
+                    this.routeLength = newRouteLen;
                     r = 0;
+                    break; // the rest of batch was generated for previous route
                 }
-                endSecs = Calendar.getInstance().getTimeInMillis() / 1000;
             }
-            if ((endSecs - startSecs) >= expiration || v == 0)
-                break;
+            if (this.transits >= this.nextCheck) {
+                expired = this.checkLimits();
+                if (this.checkpointDue)
+                    this.writeCheckpoint(t, r, w, v);
+            }
+        }
+        this.endTemperatureLevel(w);
+        return v;
+    }
+
+    /**
+     * Updates the best found route before accepted solution with route length <code>newRouteLen</code> is applied.
+     * @return <code>true</code> if accepted solution is better than the best found one
+     */
+    private boolean prepareTransit(int newRouteLen) {
+        if (newRouteLen > this.routeLength)
+            this.acceptedWorsening++;
+        else
+            this.acceptedImproving++;
+        if (newRouteLen < this.bestRouteLength) {
+            this.bestRouteLength = newRouteLen;
+            this.bestPending = true; // copied when annealing leaves the best route
+            if (this.listener != null)
+                this.listener.onBestImproved(System.nanoTime() - this.startNanos, newRouteLen);
+            return true;
+        }
+        this.storeBestRoute();
+        return false;
+    }
+
+    /**
+     * @return <code>true</code> if time limit of solving expired or limit of transits was reached.
+     */
+    boolean isExpired() {
+        return this.cancelled || this.transits >= this.transitLimit
+                || System.nanoTime() - this.deadlineNanos - this.deadlineExtension.get() >= 0
+                || isGapClosed(this.bestRouteLength, this.lowerBound, this.maxGap);
+    }
+
+    /**
+     * @return <code>true</code> if relative gap between route <code>length</code> and lower <code>bound</code> is not
+     * greater than <code>epsilon</code>.
+     */
+    static boolean isGapClosed(int length, ILowerBound bound, double epsilon) {
+        if (bound == null)
+            return false;
+        int lb = bound.getLowerBound();
+        return lb > 0 && length - lb <= epsilon * lb;
+    }
+
+    /**
+     * Stops solving as soon as possible, it may be called by any thread.
+     */
+    void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Moves time limit of solving later by <code>nanos</code>, it may be called by any thread.
+     */
+    void extendDeadline(long nanos) {
+        this.deadlineExtension.addAndGet(nanos);
+    }
+
+    /**
+     * Plans next check of limits of solving and checks them.
+     * @return <code>true</code> if solving should stop
+     */
+    private boolean checkLimits() {
+        if (this.transits >= this.nextSample) {
+            this.reportSample();
+            this.nextSample = this.transits + this.sampleInterval;
+        }
+        if (this.run != null && this.bestRouteLength < this.publishedLength
+                && System.nanoTime() - this.nextPublishNanos >= 0)
+            this.publishSnapshot();
+        this.nextCheck = Math.min(Math.min(this.transits + CLOCK_CHECK_INTERVAL, this.transitLimit), this.nextSample);
+        if (this.checkpoints != null && System.nanoTime() - this.nextCheckpointNanos >= 0)
+            this.checkpointDue = true;
+        return this.isExpired();
+    }
+
+    /**
+     * @return lowered temperature <code>t</code>.
+     */
+    private int lowerTemperature(int t) {
+        this.endTemperatureLevel(Q);
+        return this.beginTemperatureLevel((int) (t / (1.0 + BETA * t)));
+    }
+
+    /**
+     * Notes beginning of temperature level <code>t</code> for telemetry.
+     * @return <code>t</code>
+     */
+    private int beginTemperatureLevel(int t) {
+        if (this.listener != null) {
+            this.temperature = t;
+            this.levelStartNanos = System.nanoTime();
+        }
+        return t;
+    }
+
+    /**
+     * Reports end of current temperature level to listener.
+     * @param transits count of transits examined at the temperature level
+     */
+    private void endTemperatureLevel(int transits) {
+        if (this.listener != null)
+            this.listener.onTemperatureLevel(this.temperature, System.nanoTime() - this.levelStartNanos, transits);
+    }
+
+    /**
+     * Passes counters incremented since the last sample to listener.
+     */
+    void reportSample() {
+        if (this.listener == null)
+            return;
+        this.listener.onSample(System.nanoTime() - this.startNanos, this.transits - this.sampledTransits,
+                this.acceptedImproving - this.sampledImproving, this.acceptedWorsening - this.sampledWorsening,
+                this.routeLength, this.bestRouteLength, this.temperature);
+        this.sampledTransits = this.transits;
+        this.sampledImproving = this.acceptedImproving;
+        this.sampledWorsening = this.acceptedWorsening;
+    }
+
+    /**
+     * Continues annealing from given <code>route</code> instead of current route of primary heuristic.
+     * @param route valid path of Traveling Salesman
+     */
+    void restartFrom(int[] route) {
+        this.storeBestRoute();
+        this.heuristic.resetRoute(route);
+        this.routeLength = this.heuristic.getRouteLength();
+        if (this.routeLength < this.bestRouteLength) {
+            this.bestRouteLength = this.routeLength;
+            this.bestPending = true;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if annealing cycle continues from checkpoint, state of cycle is restored only once.
+     */
+    private boolean takeResumed() {
+        boolean resumed = this.resumed;
+        this.resumed = false;
+        return resumed;
+    }
+
+    /**
+     * Serializes state of annealing within cycle at temperature <code>t</code> with counters <code>r</code>,
+     * <code>w</code> and <code>v</code> and passes it to writer of checkpoints.
+     */
+    private void writeCheckpoint(int t, int r, int w, int v) {
+        this.checkpointDue = false;
+        this.storeBestRoute();
+        DataOutputStream out = this.checkpoints.begin();
+        try {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(System.nanoTime() - this.startNanos);
+            out.writeLong(this.transits);
+            out.writeLong(this.acceptedImproving);
+            out.writeLong(this.acceptedWorsening);
+            out.writeInt(this.idleCycles);
+            out.writeInt(t);
+            out.writeInt(r);
+            out.writeInt(w);
+            out.writeInt(v);
+            out.writeInt(this.routeLength);
+            out.writeInt(this.bestRouteLength);
+            CheckpointFile.writeRoute(this.x, out);
+            CheckpointFile.writeRandom(this.rand, out);
+            this.checkpointable.writeState(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // stream writes to memory only
+        }
+        this.checkpoints.commit();
+        this.nextCheckpointNanos = System.nanoTime() + this.checkpointIntervalNanos;
+    }
+
+    /**
+     * Restores state written by <code>writeCheckpoint</code>.
+     */
+    private void readCheckpoint(DataInputStream in, ICheckpointable checkpointable) throws IOException {
+        if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION)
+            throw new IOException("Not a checkpoint of simulated annealing");
+        this.resumedNanos = in.readLong();
+        this.transits = in.readLong();
+        this.acceptedImproving = in.readLong();
+        this.acceptedWorsening = in.readLong();
+        this.idleCycles = in.readInt();
+        this.resumedT = in.readInt();
+        this.resumedR = in.readInt();
+        this.resumedW = in.readInt();
+        this.resumedV = in.readInt();
+        this.routeLength = in.readInt();
+        this.bestRouteLength = in.readInt();
+        this.x = new int[this.heuristic.getSolutionRoute().length];
+        CheckpointFile.readRoute(in, this.x);
+        this.rand = CheckpointFile.readRandom(in);
+        checkpointable.readState(in);
+        if (this.heuristic.getRouteLength() != this.routeLength)
+            throw new IOException("Mismatch between checkpoint route length and primary heuristic route length");
+        this.resumed = true;
+    }
+
+    /**
+     * Waits until the last checkpoint is written and stops writer of checkpoints.
+     */
+    private void closeCheckpoints() {
+        if (this.checkpoints == null)
+            return;
+        try {
+            this.checkpoints.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.writtenCheckpoints = this.checkpoints.getWrittenCount();
+        this.checkpointFailure = this.checkpoints.getFailure();
+        this.checkpoints = null;
+        this.checkpointDue = false;
+    }
+
+    /**
+     * Publishes snapshot of the best found route to handle of asynchronous solving.
+     */
+    private void publishSnapshot() {
+        Snapshot snapshot = this.snapshot();
+        this.run.publish(snapshot);
+        this.publishedLength = snapshot.getLength();
+        this.nextPublishNanos = System.nanoTime() + this.publishIntervalNanos;
+    }
+
+    /**
+     * @return immutable copy of the best found route.
+     */
+    private Snapshot snapshot() {
+        this.storeBestRoute();
+        return new Snapshot(this.x.clone(), this.bestRouteLength, System.nanoTime() - this.startNanos, this.transits);
+    }
+
+    /**
+     * Copies current route of primary heuristic to preallocated best route, if it is the best found route and it has
+     * not been copied yet.
+     */
+    private void storeBestRoute() {
+        if (this.bestPending) {
+            System.arraycopy(this.heuristic.getSolutionRoute(), 0, this.x, 0, this.x.length);
+            this.bestPending = false;
         }
     }
 
@@ -77,6 +751,15 @@ public class SaForTsp {
         }
         System.out.printf("%s)\n", (this.x[0] < 0 ? "?" : String.valueOf(this.x[0])));
         System.out.println("  * length of best found route: " + this.bestRouteLength);
+        System.out.printf("  * examined transits: %d (%.0f per second)%n", this.transits,
+                this.transits / Math.max(this.solvingNanos / 1e9, 1e-9));
+        if (this.writtenCheckpoints > 0 || this.checkpointFailure != null)
+            System.out.println("  * checkpoints written: " + this.writtenCheckpoints + (this.checkpointFailure == null
+                    ? "" : " (the last one failed: " + this.checkpointFailure.getMessage() + ")"));
+        if (this.lowerBound != null && this.lowerBound.getLowerBound() > 0) {
+            int lb = this.lowerBound.getLowerBound();
+            System.out.printf("  * lower bound: %d (gap %.2f %%)%n", lb, 100.0 * (this.bestRouteLength - lb) / lb);
+        }
         System.out.println("  * Test of nodes presence: " + (this.verifyNodesPresence() ? "PASSED" : "FAILED!"));
     }
 
@@ -0,0 +1,295 @@
+package metaheuristics;
+
+import contracts.IDistanceMatrix;
+import heuristics.TwoOpt;
+import matrix.CandidateLists;
+import matrix.MatrixDelta;
+import matrix.PatchedDistanceMatrix;
+import matrix.WindowDistanceMatrix;
+
+/**
+ * Re-optimisation of route of previous run after small change of distance matrix. Instead of solving changed instance
+ * from scratch, route of previous run is repaired and annealed only around nodes affected by the change:
+ * <ol>
+ *     <li>removed nodes are left out of route, inserted nodes are placed by cheapest insertion,</li>
+ *     <li>nodes with changed distances, inserted nodes and neighbours of removed nodes are affected nodes,</li>
+ *     <li>each window of route positions around affected nodes is annealed by {@link SaForTsp} with {@link TwoOpt}
+ *     at low temperature, while the rest of route stays as it was.</li>
+ * </ol>
+ * Window is annealed as path with fixed end nodes on {@link WindowDistanceMatrix} view, so the best annealed route
+ * always keeps window connected to the rest of route. Candidate lists of 2-opt are built for nodes of window only, so
+ * shortened distance between nodes, which are far apart in route, is not exploited - for such changes the instance
+ * should be solved again.
+ */
+public class WarmStart {
+    private static final int CANDIDATES = 10;         // nearest nodes of each node of window used by 2-opt
+    private static final int MIN_WINDOW = 8;          // shorter windows are not annealed
+    private static final double TEMPERATURE_RATIO = 0.25; // initial temperature relative to mean edge of window
+
+    private final PatchedDistanceMatrix dij;
+    private final int M;                              // nodes count of changed instance
+    private final int[] previousRoute;               // route of previous run in IDs of base matrix
+    private final long seed;
+    private int windowRadius = 25;                    // count of route positions annealed on each side of affected node
+    private int transitsPerNode = 2_000;              // limit of examined transits of window per its node
+    private int[] route;                              // best found route, null before solving
+    private int routeLength;
+    private int repairedLength;                       // length of route after removal and insertion of nodes
+    private int affectedCount;                        // count of affected nodes
+    private int windowsCount;                         // count of annealed windows
+    private int windowNodes;                          // count of nodes in annealed windows
+    private long repairNanos, annealNanos;
+
+    /**
+     * @param previousRoute valid path of Traveling Salesman of base matrix of <code>delta</code>, first and last node
+     *                      is the same node
+     * @param delta changes of matrix since previous run, they are applied at construction
+     * @param seed seed of annealing of windows
+     */
+    public WarmStart(int[] previousRoute, MatrixDelta delta, long seed) {
+        if (previousRoute == null)
+            throw new NullPointerException("Previous route not provided");
+        if (delta == null)
+            throw new NullPointerException("Matrix delta not provided");
+        final int N = delta.getBase().getNodesCount();
+        if (previousRoute.length != N + 1 || previousRoute[0] != previousRoute[N])
+            throw new IllegalArgumentException("Previous route is not closed route of all nodes of base matrix");
+        boolean[] visited = new boolean[N];
+        for (int i = 0; i < N; i++) {
+            int node = previousRoute[i];
+            if (node < 0 || node >= N || visited[node])
+                throw new IllegalArgumentException("Previous route is not valid path of Traveling Salesman");
+            visited[node] = true;
+        }
+        this.dij = delta.apply();
+        this.M = this.dij.getNodesCount();
+        if (this.M < 3)
+            throw new IllegalArgumentException("Changed instance must have at least 3 nodes");
+        this.previousRoute = previousRoute.clone();
+        this.seed = seed;
+    }
+
+    /**
+     * @param positions count of route positions annealed before and after each affected node (25 by default)
+     */
+    public void setWindowRadius(int positions) {
+        if (positions < 1)
+            throw new IllegalArgumentException("Window radius must be positive");
+        this.windowRadius = positions;
+    }
+
+    /**
+     * @param transits annealing of window stops after examining this count of transits per node of window (2000 by
+     *                 default), or sooner when its cycle doesn't improve the window
+     */
+    public void setTransitsPerNode(int transits) {
+        if (transits < 1)
+            throw new IllegalArgumentException("Transits limit must be positive");
+        this.transitsPerNode = transits;
+    }
+
+    /**
+     * @return changed matrix, IDs of nodes in found route refer to it.
+     */
+    public PatchedDistanceMatrix getMatrix() {
+        return this.dij;
+    }
+
+    public void solve() {
+        long start = System.nanoTime();
+        boolean[] affected = new boolean[this.M];
+        int[] r = this.repair(affected);
+        long repaired = System.nanoTime();
+        this.repairedLength = routeLength(r, this.dij);
+        this.annealWindows(r, affected);
+        this.route = r;
+        this.routeLength = routeLength(r, this.dij);
+        this.repairNanos = repaired - start;
+        this.annealNanos = System.nanoTime() - repaired;
+    }
+
+    /**
+     * @return copy of the best found path of Traveling Salesman of changed matrix, first and last node is the same
+     * node.
+     */
+    public int[] getBestRoute() {
+        return this.route.clone();
+    }
+
+    public int getBestRouteLength() {
+        return this.routeLength;
+    }
+
+    /**
+     * @return length of route of changed matrix before annealing of windows.
+     */
+    public int getRepairedRouteLength() {
+        return this.repairedLength;
+    }
+
+    public void printSolution() {
+        System.out.print(" - - -\nTSP warm start re-optimisation:\n  x = (");
+        for (int i = 0; i < (this.route.length - 1); i++) {
+            if (i != 0 && i % 22 == 0)
+                System.out.print("\n      ");
+            System.out.printf("%d, ", this.route[i]);
+        }
+        System.out.printf("%d)\n", this.route[0]);
+        System.out.println("  * length of best found route: " + this.routeLength + " (repaired route: "
+                + this.repairedLength + ")");
+        System.out.printf("  * %d affected nodes, %d windows of %d nodes, repair %.1f ms, annealing %.1f ms%n",
+                this.affectedCount, this.windowsCount, this.windowNodes, this.repairNanos / 1e6,
+                this.annealNanos / 1e6);
+    }
+
+    /**
+     * Translates previous route to changed matrix, leaves out removed nodes and inserts new ones.
+     * @param affected array, where affected nodes are marked
+     * @return closed route of all nodes of changed matrix
+     */
+    private int[] repair(boolean[] affected) {
+        final int N = this.previousRoute.length - 1;
+        int[] r = new int[this.M + 1];
+        int n = 0;
+        boolean removedFirst = false; // the first node of previous route was removed
+        boolean markNext = false;     // the next kept node follows removed node
+        for (int i = 0; i < N; i++) {
+            int node = this.dij.getPatchedNode(this.previousRoute[i]);
+            if (node < 0) {
+                if (n > 0)
+                    affected[r[n - 1]] = true;
+                else
+                    removedFirst = true;
+                markNext = true;
+            } else {
+                if (markNext)
+                    affected[node] = true;
+                markNext = false;
+                r[n++] = node;
+            }
+        }
+        if (n > 0 && markNext)
+            affected[r[0]] = true;
+        if (n > 0 && removedFirst)
+            affected[r[n - 1]] = true;
+        for (int node = 0; node < this.M; node++) {
+            if (this.dij.isTouched(node))
+                affected[node] = true;
+            if (this.dij.isInserted(node)) {
+                n = this.insertCheapest(r, n, node);
+                affected[node] = true;
+            }
+        }
+        r[this.M] = r[0];
+        this.affectedCount = 0;
+        for (boolean a : affected) {
+            if (a)
+                this.affectedCount++;
+        }
+        return r;
+    }
+
+    /**
+     * Inserts <code>node</code> between two consecutive nodes of open route <code>r</code> of <code>n</code> nodes,
+     * where it prolongs the route the least.
+     * @return new count of nodes of route
+     */
+    private int insertCheapest(int[] r, int n, int node) {
+        int best = n - 1; // node is inserted after r[best]
+        long bestCost = Long.MAX_VALUE;
+        for (int i = 0; i < n && n > 1; i++) {
+            int a = r[i];
+            int b = r[(i + 1) % n];
+            long cost = (long) this.dij.getDistance(a, node) + this.dij.getDistance(node, b)
+                    - this.dij.getDistance(a, b);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = i;
+            }
+        }
+        System.arraycopy(r, best + 1, r, best + 2, n - best - 1);
+        r[best + 1] = node;
+        return n + 1;
+    }
+
+    /**
+     * Anneals windows of route positions around affected nodes, route <code>r</code> is updated in place.
+     */
+    private void annealWindows(int[] r, boolean[] affected) {
+        boolean[] covered = new boolean[this.M]; // covered[p] is true if position p belongs to some window
+        int coveredCount = 0;
+        for (int p = 0; p < this.M; p++) {
+            if (!affected[r[p]])
+                continue;
+            for (int d = -this.windowRadius; d <= this.windowRadius; d++) {
+                int q = Math.floorMod(p + d, this.M);
+                if (!covered[q]) {
+                    covered[q] = true;
+                    coveredCount++;
+                }
+            }
+        }
+        this.windowsCount = 0;
+        this.windowNodes = 0;
+        if (coveredCount == this.M) {
+            this.annealWindow(r, 0, this.M);
+            return;
+        }
+        int free = 0; // windows are found from uncovered position, so none of them wraps around it
+        while (covered[free]) {
+            free++;
+        }
+        int windowStart = -1;
+        for (int k = 1; k <= this.M; k++) {
+            int p = (free + k) % this.M;
+            if (covered[p] && windowStart < 0)
+                windowStart = p;
+            if (!covered[p] && windowStart >= 0) {
+                this.annealWindow(r, windowStart, Math.floorMod(p - windowStart, this.M));
+                windowStart = -1;
+            }
+        }
+    }
+
+    /**
+     * Anneals path of <code>size</code> nodes of route <code>r</code> from position <code>start</code>, its end nodes
+     * stay in place.
+     */
+    private void annealWindow(int[] r, int start, int size) {
+        if (size < MIN_WINDOW)
+            return;
+        int[] nodes = new int[size];
+        long length = 0;
+        for (int k = 0; k < size; k++) {
+            nodes[k] = r[(start + k) % this.M];
+            if (k > 0)
+                length += this.dij.getDistance(nodes[k - 1], nodes[k]);
+        }
+        if (length >= Integer.MAX_VALUE / 4)
+            return; // penalty of dummy node wouldn't fit to route length
+        WindowDistanceMatrix window = new WindowDistanceMatrix(this.dij, nodes);
+        long windowSeed = this.seed + this.windowsCount;
+        TwoOpt operation = new TwoOpt(window.getPathRoute(), window, CandidateLists.build(window, CANDIDATES),
+                windowSeed);
+        SaForTsp annealing = new SaForTsp(operation, windowSeed);
+        annealing.setInitialTemperature((int) Math.max(1, TEMPERATURE_RATIO * length / (size - 1)));
+        annealing.setTransitLimit((long) this.transitsPerNode * size);
+        annealing.setMaxIdleCycles(Integer.MAX_VALUE);
+        annealing.solve();
+        int[] path = window.toSourcePath(annealing.getBestRoute());
+        for (int k = 0; k < size; k++) {
+            r[(start + k) % this.M] = path[k];
+        }
+        r[this.M] = r[0];
+        this.windowsCount++;
+        this.windowNodes += size;
+    }
+
+    private static int routeLength(int[] route, IDistanceMatrix dij) {
+        int length = 0;
+        for (int i = 0; i < route.length - 1; i++) {
+            length += dij.getDistance(route[i], route[i + 1]);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,150 @@
+package telemetry;
+
+import contracts.IAnnealingListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects telemetry of one or more annealing chains. Counters are striped (<code>LongAdder</code>), so chains running
+ * in parallel don't contend on them. Collected data can be exported by {@link TelemetryExporter}.
+ */
+public class AnnealingTelemetry implements IAnnealingListener {
+    /**
+     * Improvement of the best found route of all chains.
+     */
+    public static final class BestPoint {
+        public final long elapsedNanos;
+        public final int length;
+
+        BestPoint(long elapsedNanos, int length) {
+            this.elapsedNanos = elapsedNanos;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Sample of counters of one chain, counts are increments since its previous sample.
+     */
+    public static final class Sample {
+        public final long elapsedNanos;
+        public final long transits;
+        public final long acceptedImproving;
+        public final long acceptedWorsening;
+        public final int currentLength;
+        public final int bestLength;
+        public final int temperature;
+
+        Sample(long elapsedNanos, long transits, long acceptedImproving, long acceptedWorsening, int currentLength,
+               int bestLength, int temperature) {
+            this.elapsedNanos = elapsedNanos;
+            this.transits = transits;
+            this.acceptedImproving = acceptedImproving;
+            this.acceptedWorsening = acceptedWorsening;
+            this.currentLength = currentLength;
+            this.bestLength = bestLength;
+            this.temperature = temperature;
+        }
+    }
+
+    /**
+     * Time and transits spent at one temperature, summed over all its occurrences.
+     */
+    public static final class TemperatureLevel {
+        public final int temperature;
+        public final long visits;
+        public final long durationNanos;
+        public final long transits;
+
+        TemperatureLevel(int temperature, long visits, long durationNanos, long transits) {
+            this.temperature = temperature;
+            this.visits = visits;
+            this.durationNanos = durationNanos;
+            this.transits = transits;
+        }
+    }
+
+    private final LongAdder transits = new LongAdder();
+    private final LongAdder acceptedImproving = new LongAdder();
+    private final LongAdder acceptedWorsening = new LongAdder();
+    private final AtomicInteger bestLength = new AtomicInteger(Integer.MAX_VALUE);
+    private final ConcurrentLinkedQueue<BestPoint> bestTrace = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, LongAdder[]> levels = new ConcurrentHashMap<>(); // visits, nanos, transits by temperature
+
+    @Override
+    public void onSample(long elapsedNanos, long transits, long acceptedImproving, long acceptedWorsening,
+                         int currentLength, int bestLength, int temperature) {
+        this.transits.add(transits);
+        this.acceptedImproving.add(acceptedImproving);
+        this.acceptedWorsening.add(acceptedWorsening);
+        this.samples.add(new Sample(elapsedNanos, transits, acceptedImproving, acceptedWorsening, currentLength,
+                bestLength, temperature));
+    }
+
+    @Override
+    public void onBestImproved(long elapsedNanos, int bestLength) {
+        int previous = this.bestLength.getAndAccumulate(bestLength, Math::min);
+        if (bestLength < previous) // only improvements of the best route of all chains are traced
+            this.bestTrace.add(new BestPoint(elapsedNanos, bestLength));
+    }
+
+    @Override
+    public void onTemperatureLevel(int temperature, long durationNanos, long transits) {
+        LongAdder[] level = this.levels.computeIfAbsent(temperature,
+                t -> new LongAdder[] { new LongAdder(), new LongAdder(), new LongAdder() });
+        level[0].increment();
+        level[1].add(durationNanos);
+        level[2].add(transits);
+    }
+
+    /**
+     * @return count of examined transits reported by samples.
+     */
+    public long getTransits() {
+        return this.transits.sum();
+    }
+
+    public long getAcceptedImproving() {
+        return this.acceptedImproving.sum();
+    }
+
+    public long getAcceptedWorsening() {
+        return this.acceptedWorsening.sum();
+    }
+
+    /**
+     * @return length of the best route found by any chain, <code>Integer.MAX_VALUE</code> if none was reported yet.
+     */
+    public int getBestLength() {
+        return this.bestLength.get();
+    }
+
+    public List<BestPoint> getBestTrace() {
+        return new ArrayList<>(this.bestTrace);
+    }
+
+    public List<Sample> getSamples() {
+        return new ArrayList<>(this.samples);
+    }
+
+    /**
+     * @return temperature levels ordered by temperature descending.
+     */
+    public List<TemperatureLevel> getTemperatureLevels() {
+        TreeMap<Integer, LongAdder[]> sorted = new TreeMap<>((a, b) -> Integer.compare(b, a));
+        sorted.putAll(this.levels);
+        List<TemperatureLevel> result = new ArrayList<>(sorted.size());
+        for (Map.Entry<Integer, LongAdder[]> level : sorted.entrySet()) {
+            LongAdder[] sums = level.getValue();
+            result.add(new TemperatureLevel(level.getKey(), sums[0].sum(), sums[1].sum(), sums[2].sum()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package telemetry;
+
+import contracts.IAnnealingListener;
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Listener which emits progress of annealing as Java Flight Recorder events. Events are created only when they are
+ * enabled in running recording, so listener is cheap when no recording runs.
+ */
+public class JfrAnnealingListener implements IAnnealingListener {
+
+    @Name("tsp.AnnealingSample")
+    @Label("Annealing Sample")
+    @Category("TSP Solver")
+    static class SampleEvent extends Event {
+        @Label("Transits")
+        long transits;
+        @Label("Accepted Improving")
+        long acceptedImproving;
+        @Label("Accepted Worsening")
+        long acceptedWorsening;
+        @Label("Current Length")
+        int currentLength;
+        @Label("Best Length")
+        int bestLength;
+        @Label("Temperature")
+        int temperature;
+    }
+
+    @Name("tsp.BestImproved")
+    @Label("Best Route Improved")
+    @Category("TSP Solver")
+    static class BestImprovedEvent extends Event {
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+        @Label("Best Length")
+        int bestLength;
+    }
+
+    @Name("tsp.TemperatureLevel")
+    @Label("Temperature Level")
+    @Category("TSP Solver")
+    @Enabled(false) // one event per temperature level is frequent, so it must be enabled explicitly in settings
+    static class TemperatureLevelEvent extends Event {
+        @Label("Temperature")
+        int temperature;
+        @Label("Duration At Temperature")
+        @Timespan(Timespan.NANOSECONDS)
+        long levelDuration;
+        @Label("Transits")
+        long transits;
+    }
+
+    @Override
+    public void onSample(long elapsedNanos, long transits, long acceptedImproving, long acceptedWorsening,
+                         int currentLength, int bestLength, int temperature) {
+        SampleEvent event = new SampleEvent();
+        if (!event.isEnabled())
+            return;
+        event.transits = transits;
+        event.acceptedImproving = acceptedImproving;
+        event.acceptedWorsening = acceptedWorsening;
+        event.currentLength = currentLength;
+        event.bestLength = bestLength;
+        event.temperature = temperature;
+        event.commit();
+    }
+
+    @Override
+    public void onBestImproved(long elapsedNanos, int bestLength) {
+        BestImprovedEvent event = new BestImprovedEvent();
+        if (!event.isEnabled())
+            return;
+        event.elapsed = elapsedNanos;
+        event.bestLength = bestLength;
+        event.commit();
+    }
+
+    @Override
+    public void onTemperatureLevel(int temperature, long durationNanos, long transits) {
+        TemperatureLevelEvent event = new TemperatureLevelEvent();
+        if (!event.isEnabled())
+            return;
+        event.temperature = temperature;
+        event.levelDuration = durationNanos;
+        event.transits = transits;
+        event.commit();
+    }
+}
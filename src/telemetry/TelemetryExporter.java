@@ -0,0 +1,73 @@
+package telemetry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes telemetry collected by {@link AnnealingTelemetry} in CSV or JSON format, e.g. for dashboards.
+ */
+public final class TelemetryExporter {
+
+    private TelemetryExporter() {
+    }
+
+    /**
+     * Writes one CSV row for each sample, best route improvement and temperature level. Column <code>record</code>
+     * tells kind of row, columns not related to the kind are left empty. Every line ends with <code>\n</code>
+     * regardless of platform.
+     */
+    public static void writeCsv(AnnealingTelemetry telemetry, Writer out) throws IOException {
+        out.write("record,elapsed_ms,transits,accepted_improving,accepted_worsening,current_length,best_length,"
+                + "temperature,visits,duration_ms\n");
+        for (AnnealingTelemetry.Sample s : telemetry.getSamples()) {
+            out.write(String.format(Locale.ROOT, "sample,%.3f,%d,%d,%d,%d,%d,%d,,\n", s.elapsedNanos / 1e6, s.transits,
+                    s.acceptedImproving, s.acceptedWorsening, s.currentLength, s.bestLength, s.temperature));
+        }
+        for (AnnealingTelemetry.BestPoint b : telemetry.getBestTrace()) {
+            out.write(String.format(Locale.ROOT, "best,%.3f,,,,,%d,,,\n", b.elapsedNanos / 1e6, b.length));
+        }
+        for (AnnealingTelemetry.TemperatureLevel l : telemetry.getTemperatureLevels()) {
+            out.write(String.format(Locale.ROOT, "temperature,,%d,,,,,%d,%d,%.3f\n", l.transits, l.temperature,
+                    l.visits, l.durationNanos / 1e6));
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes totals, samples, best route trace and temperature levels as one JSON object.
+     */
+    public static void writeJson(AnnealingTelemetry telemetry, Writer out) throws IOException {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"transits\":").append(telemetry.getTransits())
+                .append(",\"acceptedImproving\":").append(telemetry.getAcceptedImproving())
+                .append(",\"acceptedWorsening\":").append(telemetry.getAcceptedWorsening())
+                .append(",\"bestLength\":").append(telemetry.getBestLength())
+                .append(",\"samples\":[");
+        String separator = "";
+        for (AnnealingTelemetry.Sample s : telemetry.getSamples()) {
+            json.append(separator).append(String.format(Locale.ROOT, "{\"elapsedMs\":%.3f,\"transits\":%d,"
+                            + "\"acceptedImproving\":%d,\"acceptedWorsening\":%d,\"currentLength\":%d,\"bestLength\":%d,"
+                            + "\"temperature\":%d}", s.elapsedNanos / 1e6, s.transits, s.acceptedImproving,
+                    s.acceptedWorsening, s.currentLength, s.bestLength, s.temperature));
+            separator = ",";
+        }
+        json.append("],\"bestTrace\":[");
+        separator = "";
+        for (AnnealingTelemetry.BestPoint b : telemetry.getBestTrace()) {
+            json.append(separator).append(String.format(Locale.ROOT, "{\"elapsedMs\":%.3f,\"length\":%d}",
+                    b.elapsedNanos / 1e6, b.length));
+            separator = ",";
+        }
+        json.append("],\"temperatureLevels\":[");
+        separator = "";
+        for (AnnealingTelemetry.TemperatureLevel l : telemetry.getTemperatureLevels()) {
+            json.append(separator).append(String.format(Locale.ROOT, "{\"temperature\":%d,\"visits\":%d,"
+                    + "\"transits\":%d,\"durationMs\":%.3f}", l.temperature, l.visits, l.transits, l.durationNanos / 1e6));
+            separator = ",";
+        }
+        json.append("]}\n");
+        out.write(json.toString());
+        out.flush();
+    }
+}
@@ -0,0 +1,99 @@
+package tour;
+
+import contracts.ITour;
+
+/**
+ * Tour kept in array of nodes together with index of their positions. Queries take constant time and reversal takes
+ * time proportional to the shorter of reversed path and the rest of the cycle, so it's the best choice for small
+ * instances and short moves.
+ */
+public final class ArrayTour implements ITour {
+    private final int n;          // nodes count
+    private final int[] route;    // route[n] is the same node as route[0]
+    private final int[] pos;      // pos[node] is index of node in route, from interval <0, n)
+
+    /**
+     * @param route valid path of Traveling Salesman, first and last node is the same node. Array is not copied, it
+     *              becomes storage of the tour.
+     */
+    public ArrayTour(int[] route) {
+        if (route == null)
+            throw new NullPointerException("Path of TSP not provided");
+        if (route.length < 2)
+            throw new IllegalArgumentException("Path of TSP must contain at least one node");
+        this.n = route.length - 1;
+        this.route = route;
+        this.pos = new int[this.n];
+        this.indexRoute();
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.n;
+    }
+
+    @Override
+    public int next(int node) {
+        return this.route[this.pos[node] + 1];
+    }
+
+    @Override
+    public int prev(int node) {
+        int p = this.pos[node];
+        return this.route[(p == 0) ? this.n - 1 : p - 1];
+    }
+
+    @Override
+    public boolean between(int a, int b, int c) {
+        int pa = this.pos[a];
+        int db = this.pos[b] - pa;
+        int dc = this.pos[c] - pa;
+        if (db < 0)
+            db += this.n;
+        if (dc < 0)
+            dc += this.n;
+        return db <= dc;
+    }
+
+    @Override
+    public void reverse(int from, int to) {
+        int i = this.pos[from];
+        int len = this.pos[to] - i + 1;
+        if (len <= 0)
+            len += this.n;
+        if (2 * len > this.n) { // reverse the other side of cycle
+            i = this.pos[to] + 1;
+            len = this.n - len;
+        }
+        for (int k = 0, l = i, r = i + len - 1; k < len / 2; k++, l++, r--) {
+            int li = (l >= this.n) ? l - this.n : l;
+            int ri = (r >= this.n) ? r - this.n : r;
+            int hlp = this.route[li];
+            this.route[li] = this.route[ri];
+            this.route[ri] = hlp;
+            this.pos[this.route[li]] = li;
+            this.pos[this.route[ri]] = ri;
+        }
+        this.route[this.n] = this.route[0];
+    }
+
+    @Override
+    public int[] getRoute() {
+        return this.route;
+    }
+
+    @Override
+    public void setRoute(int[] route) {
+        if (route.length != this.route.length)
+            throw new IllegalArgumentException("Mismatch between path nodes count and tour nodes count");
+        System.arraycopy(route, 0, this.route, 0, route.length);
+        this.indexRoute();
+    }
+
+    private void indexRoute() {
+        for (int k = 0; k < this.n; k++) {
+            this.pos[this.route[k]] = k;
+        }
+        this.route[this.n] = this.route[0];
+    }
+}
@@ -0,0 +1,324 @@
+package tour;
+
+import contracts.ITour;
+
+/**
+ * Tour kept as two-level list - cycle of blocks of at most S = &radic;n nodes, where each block has its own
+ * orientation flag. Reversal of path splits blocks at both ends of the path, so the path consists of whole blocks,
+ * then reverses order of these blocks and flips their orientation flags. Adjacent blocks, which fit into one block,
+ * are merged at both ends of the path afterwards, so count of blocks stays below 2n/S + 1. Queries take constant time
+ * and reversal takes O(&radic;n) time regardless of length of the path, so it's the best choice for large instances
+ * with long moves.
+ * <p>
+ * Blocks are preallocated and order of blocks is kept in array, so nothing is allocated after construction except
+ * by <code>getRoute()</code>, whose array is allocated once.
+ */
+public final class TwoLevelListTour implements ITour {
+    private final int n;                  // nodes count
+    private final int S;                  // capacity of block
+    private final int[][] blockNodes;     // storage of nodes of each block
+    private final int[] blockSize;        // count of nodes in block
+    private final boolean[] blockReversed; // nodes of block are traversed from the end of its storage
+    private final int[] blockPos;         // position of block in order, -1 for unused block
+    private final int[] order;            // order[k] is block on k-th position of cycle of blocks
+    private int m;                        // count of used blocks
+    private final int[] freeBlocks;       // stack of unused blocks
+    private int freeCount;
+    private final int[] blockOf;          // block containing node
+    private final int[] index;            // index of node in storage of its block
+    private final int[] route;            // buffer for getRoute()
+
+    /**
+     * @param route valid path of Traveling Salesman, first and last node is the same node, it's copied
+     */
+    public TwoLevelListTour(int[] route) {
+        if (route == null)
+            throw new NullPointerException("Path of TSP not provided");
+        if (route.length < 2)
+            throw new IllegalArgumentException("Path of TSP must contain at least one node");
+        this.n = route.length - 1;
+        this.S = Math.max(4, (int) Math.ceil(Math.sqrt(this.n)));
+        int maxBlocks = 2 * ((this.n + this.S - 1) / this.S) + 4;
+        this.blockNodes = new int[maxBlocks][this.S];
+        this.blockSize = new int[maxBlocks];
+        this.blockReversed = new boolean[maxBlocks];
+        this.blockPos = new int[maxBlocks];
+        this.order = new int[maxBlocks];
+        this.freeBlocks = new int[maxBlocks];
+        this.blockOf = new int[this.n];
+        this.index = new int[this.n];
+        this.route = new int[this.n + 1];
+        this.setRoute(route);
+    }
+
+    @Override
+    public int getNodesCount() {
+        return this.n;
+    }
+
+    @Override
+    public int next(int node) {
+        int b = this.blockOf[node];
+        int li = this.logicalIndex(node);
+        if (li + 1 < this.blockSize[b])
+            return this.nodeAt(b, li + 1);
+        int p = this.blockPos[b] + 1;
+        return this.nodeAt(this.order[(p == this.m) ? 0 : p], 0);
+    }
+
+    @Override
+    public int prev(int node) {
+        int b = this.blockOf[node];
+        int li = this.logicalIndex(node);
+        if (li > 0)
+            return this.nodeAt(b, li - 1);
+        int p = this.blockPos[b];
+        int pb = this.order[(p == 0) ? this.m - 1 : p - 1];
+        return this.nodeAt(pb, this.blockSize[pb] - 1);
+    }
+
+    @Override
+    public boolean between(int a, int b, int c) {
+        long span = (long) this.m * this.S;
+        long ka = this.key(a);
+        long db = this.key(b) - ka;
+        long dc = this.key(c) - ka;
+        if (db < 0)
+            db += span;
+        if (dc < 0)
+            dc += span;
+        return db <= dc;
+    }
+
+    @Override
+    public void reverse(int from, int to) {
+        if (from == to)
+            return;
+        int fb = this.blockOf[from];
+        if (fb == this.blockOf[to] && this.logicalIndex(from) <= this.logicalIndex(to)) {
+            this.reverseWithinBlock(fb, this.logicalIndex(from), this.logicalIndex(to));
+            return;
+        }
+        // split blocks, so that path begins at the first node of block and ends at the last node of block
+        int li = this.logicalIndex(from);
+        if (li > 0)
+            this.split(this.blockOf[from], li);
+        li = this.logicalIndex(to);
+        if (li + 1 < this.blockSize[this.blockOf[to]])
+            this.split(this.blockOf[to], li + 1);
+        int p = this.blockPos[this.blockOf[from]];
+        int len = this.blockPos[this.blockOf[to]] - p + 1; // count of blocks of path
+        if (len <= 0)
+            len += this.m;
+        if (2 * len > this.m) { // reverse the other side of cycle
+            p = this.blockPos[this.blockOf[to]] + 1;
+            if (p == this.m)
+                p = 0;
+            len = this.m - len;
+        }
+        for (int k = 0, l = p, r = p + len - 1; k < len / 2; k++, l++, r--) {
+            int li2 = (l >= this.m) ? l - this.m : l;
+            int ri = (r >= this.m) ? r - this.m : r;
+            int hlp = this.order[li2];
+            this.order[li2] = this.order[ri];
+            this.order[ri] = hlp;
+            this.blockPos[this.order[li2]] = li2;
+            this.blockPos[this.order[ri]] = ri;
+        }
+        for (int k = 0, l = p; k < len; k++, l++) {
+            int b = this.order[(l >= this.m) ? l - this.m : l];
+            this.blockReversed[b] = !this.blockReversed[b];
+        }
+        // blocks of path ends are at both junctions changed by split and reversal, they may fit into neighbours now
+        this.mergeAround(this.blockOf[from]);
+        this.mergeAround(this.blockOf[to]);
+    }
+
+    @Override
+    public int[] getRoute() {
+        int k = 0;
+        for (int p = 0; p < this.m; p++) {
+            int b = this.order[p];
+            for (int li = 0; li < this.blockSize[b]; li++) {
+                this.route[k++] = this.nodeAt(b, li);
+            }
+        }
+        this.route[this.n] = this.route[0];
+        return this.route;
+    }
+
+    @Override
+    public void setRoute(int[] route) {
+        if (route.length != this.n + 1)
+            throw new IllegalArgumentException("Mismatch between path nodes count and tour nodes count");
+        this.m = 0;
+        this.freeCount = 0;
+        for (int b = this.blockNodes.length - 1; b >= 0; b--) {
+            this.blockPos[b] = -1;
+            this.blockSize[b] = 0;
+            this.freeBlocks[this.freeCount++] = b;
+        }
+        for (int k = 0; k < this.n; k++) {
+            if (k % this.S == 0) {
+                int b = this.freeBlocks[--this.freeCount];
+                this.blockReversed[b] = false;
+                this.blockPos[b] = this.m;
+                this.order[this.m++] = b;
+            }
+            int b = this.order[this.m - 1];
+            this.blockNodes[b][this.blockSize[b]] = route[k];
+            this.blockOf[route[k]] = b;
+            this.index[route[k]] = this.blockSize[b]++;
+        }
+    }
+
+    /**
+     * @return count of used blocks, which stays below <code>2n / getBlockCapacity() + 1</code>.
+     */
+    int getBlocksCount() {
+        return this.m;
+    }
+
+    /**
+     * @return maximal count of nodes of block.
+     */
+    int getBlockCapacity() {
+        return this.S;
+    }
+
+    /**
+     * @return count of nodes of block on position <code>p</code> of cycle of blocks.
+     */
+    int getBlockSize(int p) {
+        return this.blockSize[this.order[p]];
+    }
+
+    /**
+     * @return index of node within traversal of its block.
+     */
+    private int logicalIndex(int node) {
+        int b = this.blockOf[node];
+        return this.blockReversed[b] ? this.blockSize[b] - 1 - this.index[node] : this.index[node];
+    }
+
+    /**
+     * @return node on index <code>li</code> of traversal of block <code>b</code>.
+     */
+    private int nodeAt(int b, int li) {
+        return this.blockNodes[b][this.blockReversed[b] ? this.blockSize[b] - 1 - li : li];
+    }
+
+    /**
+     * @return key of node increasing along the cycle from the first node of block on position 0.
+     */
+    private long key(int node) {
+        return (long) this.blockPos[this.blockOf[node]] * this.S + this.logicalIndex(node);
+    }
+
+    /**
+     * Reverses nodes on traversal indices from <code>lo</code> to <code>hi</code> of block <code>b</code>.
+     */
+    private void reverseWithinBlock(int b, int lo, int hi) {
+        int[] nodes = this.blockNodes[b];
+        if (this.blockReversed[b]) { // convert traversal indices to storage indices
+            int hlp = this.blockSize[b] - 1 - lo;
+            lo = this.blockSize[b] - 1 - hi;
+            hi = hlp;
+        }
+        for (; lo < hi; lo++, hi--) {
+            int hlp = nodes[lo];
+            nodes[lo] = nodes[hi];
+            nodes[hi] = hlp;
+            this.index[nodes[lo]] = lo;
+            this.index[nodes[hi]] = hi;
+        }
+    }
+
+    /**
+     * Moves nodes from traversal index <code>li</code> to the end of block <code>b</code> to new block placed right
+     * after <code>b</code>.
+     */
+    private void split(int b, int li) {
+        int nb = this.freeBlocks[--this.freeCount];
+        int size = this.blockSize[b];
+        int[] nodes = this.blockNodes[b];
+        int[] newNodes = this.blockNodes[nb];
+        this.blockReversed[nb] = false;
+        this.blockSize[nb] = size - li;
+        for (int k = li; k < size; k++) {
+            int node = this.nodeAt(b, k);
+            newNodes[k - li] = node;
+            this.blockOf[node] = nb;
+            this.index[node] = k - li;
+        }
+        if (this.blockReversed[b]) { // remaining nodes occupy the end of storage, move them to its beginning
+            System.arraycopy(nodes, size - li, nodes, 0, li);
+            for (int k = 0; k < li; k++) {
+                this.index[nodes[k]] = k;
+            }
+        }
+        this.blockSize[b] = li;
+        // insert new block into order
+        int p = this.blockPos[b] + 1;
+        System.arraycopy(this.order, p, this.order, p + 1, this.m - p);
+        this.order[p] = nb;
+        this.m++;
+        for (int k = p; k < this.m; k++) {
+            this.blockPos[this.order[k]] = k;
+        }
+    }
+
+    /**
+     * Merges block <code>b</code> with its predecessor and with its successor, if their nodes fit into one block.
+     */
+    private void mergeAround(int b) {
+        int p = this.blockPos[b];
+        int pb = this.order[(p == 0) ? this.m - 1 : p - 1];
+        this.mergeWithNext(pb);
+        if (this.blockPos[b] >= 0)
+            this.mergeWithNext(b);
+        else
+            this.mergeWithNext(pb); // b was merged into its predecessor
+    }
+
+    /**
+     * Merges block following block <code>b</code> into <code>b</code>, if their nodes fit into one block.
+     */
+    private void mergeWithNext(int b) {
+        int p = this.blockPos[b] + 1;
+        if (p == this.m)
+            p = 0;
+        int nb = this.order[p];
+        if (nb == b || this.blockSize[b] + this.blockSize[nb] > this.S)
+            return;
+        int[] nodes = this.blockNodes[b];
+        int size = this.blockSize[b];
+        if (this.blockReversed[b]) { // normalize orientation, so nodes can be appended to the end of storage
+            for (int lo = 0, hi = size - 1; lo < hi; lo++, hi--) {
+                int hlp = nodes[lo];
+                nodes[lo] = nodes[hi];
+                nodes[hi] = hlp;
+            }
+            for (int k = 0; k < size; k++) {
+                this.index[nodes[k]] = k;
+            }
+            this.blockReversed[b] = false;
+        }
+        for (int li = 0; li < this.blockSize[nb]; li++) {
+            int node = this.nodeAt(nb, li);
+            nodes[size] = node;
+            this.blockOf[node] = b;
+            this.index[node] = size++;
+        }
+        this.blockSize[b] = size;
+        // remove merged block from order
+        System.arraycopy(this.order, p + 1, this.order, p, this.m - p - 1);
+        this.m--;
+        for (int k = p; k < this.m; k++) {
+            this.blockPos[this.order[k]] = k;
+        }
+        this.blockPos[nb] = -1;
+        this.blockSize[nb] = 0;
+        this.freeBlocks[this.freeCount++] = nb;
+    }
+}
@@ -0,0 +1,114 @@
+package metaheuristics;
+
+import contracts.IDistanceMatrix;
+import contracts.ITspChainOperation;
+import heuristics.ChainInversion;
+import heuristics.CompositeChainOperation;
+import heuristics.OrOpt;
+import heuristics.TspSeqGrowthByNearest;
+import heuristics.TwoOpt;
+import matrix.CandidateLists;
+import matrix.CoordinateDistanceMatrix;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Annealing of N transits is compared with annealing checkpointed until N/2 transits and resumed from its last
+ * checkpoint, both must end with the same counters and routes.
+ */
+class SaForTspCheckpointTest {
+    private static final int NODES = 300;
+    private static final long TRANSITS = 400_000;
+
+    private static IDistanceMatrix dij;
+    private static int[] initialRoute;
+
+    @TempDir
+    File directory;
+
+    @BeforeAll
+    static void createInstance() {
+        Random rand = new Random(7);
+        double[] x = new double[NODES];
+        double[] y = new double[NODES];
+        for (int i = 0; i < NODES; i++) {
+            x[i] = rand.nextDouble() * 10_000;
+            y[i] = rand.nextDouble() * 10_000;
+        }
+        dij = new CoordinateDistanceMatrix(x, y, CoordinateDistanceMatrix.Metric.EUC_2D);
+        TspSeqGrowthByNearest construction = new TspSeqGrowthByNearest(dij);
+        construction.solve();
+        initialRoute = construction.getSolutionRoute();
+    }
+
+    @Test
+    void resumesChainInversion() throws IOException {
+        assertResumesExactly(path -> new ChainInversion(path, 5, dij, 3), SaForTsp.BatchMode.NONE);
+    }
+
+    @Test
+    void resumesChainInversionInBatches() throws IOException {
+        assertResumesExactly(path -> new ChainInversion(path, 5, dij, 3), SaForTsp.BatchMode.FIRST_ACCEPTING);
+    }
+
+    @Test
+    void resumesComposite() throws IOException {
+        assertResumesExactly(path -> new CompositeChainOperation(new ITspChainOperation[] {
+                new ChainInversion(path, 5, dij, 3), new OrOpt(path, 3, true, dij, 4)}, new double[] {2, 1}, 5),
+                SaForTsp.BatchMode.NONE);
+    }
+
+    @Test
+    void rejectsOperationWithoutCheckpoints() {
+        CandidateLists candidates = CandidateLists.build(dij, 10);
+        SaForTsp annealing = new SaForTsp(new TwoOpt(initialRoute.clone(), dij, candidates, 3));
+        File file = new File(this.directory, "two-opt.ckpt");
+        assertThrows(IllegalArgumentException.class, () -> annealing.setCheckpoint(file, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> SaForTsp.resume(file, new TwoOpt(initialRoute.clone(), dij, candidates, 3)));
+    }
+
+    private void assertResumesExactly(Function<int[], ITspChainOperation> operation, SaForTsp.BatchMode mode)
+            throws IOException {
+        File file = new File(this.directory, "annealing.ckpt");
+        ITspChainOperation referenceOperation = operation.apply(initialRoute.clone());
+        SaForTsp reference = configure(new SaForTsp(referenceOperation, 9), TRANSITS, mode);
+        reference.solve();
+
+        SaForTsp interrupted = configure(new SaForTsp(operation.apply(initialRoute.clone()), 9), TRANSITS / 2, mode);
+        interrupted.setCheckpoint(file, 1e-9); // checkpoint at each check of limits
+        interrupted.solve();
+        assertTrue(interrupted.getWrittenCheckpoints() > 0, "No checkpoint was written");
+        assertEquals(null, interrupted.getCheckpointFailure());
+
+        ITspChainOperation resumedOperation = operation.apply(initialRoute.clone());
+        SaForTsp resumed = configure(SaForTsp.resume(file, resumedOperation), TRANSITS, mode);
+        resumed.solve();
+
+        assertEquals(reference.getExaminedTransits(), resumed.getExaminedTransits());
+        assertEquals(reference.getAcceptedImproving(), resumed.getAcceptedImproving());
+        assertEquals(reference.getAcceptedWorsening(), resumed.getAcceptedWorsening());
+        assertEquals(reference.getBestRouteLength(), resumed.getBestRouteLength());
+        assertArrayEquals(reference.getBestRoute(), resumed.getBestRoute());
+        assertArrayEquals(referenceOperation.getSolutionRoute(), resumedOperation.getSolutionRoute());
+    }
+
+    private static SaForTsp configure(SaForTsp annealing, long transits, SaForTsp.BatchMode mode) {
+        annealing.setTransitLimit(transits);
+        annealing.setTimeLimit(600);
+        annealing.setMaxIdleCycles(Integer.MAX_VALUE);
+        annealing.setBatchMode(mode, 16);
+        return annealing;
+    }
+}
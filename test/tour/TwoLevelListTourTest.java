@@ -0,0 +1,130 @@
+package tour;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares {@link TwoLevelListTour} with {@link ArrayTour} over seeded random sequences of reversals and queries. Both
+ * tours may reverse the other side of cycle, so {@link TwoLevelListTour} is compared with {@link ArrayTour} in the
+ * orientation, in which it currently traverses the cycle.
+ */
+class TwoLevelListTourTest {
+    private static final int[] SIZES = {1, 2, 3, 5, 16, 17, 100, 1000};
+    private static final int OPERATIONS = 2_000;
+
+    @Test
+    void matchesArrayTour() {
+        for (int n : SIZES) {
+            for (long seed = 1; seed <= 5; seed++) {
+                compare(n, seed);
+            }
+        }
+    }
+
+    private static void compare(int n, long seed) {
+        Random rand = new Random(31 * seed + n);
+        int[] route = randomRoute(n, rand);
+        ArrayTour array = new ArrayTour(route.clone());
+        TwoLevelListTour list = new TwoLevelListTour(route);
+        String context = n + " nodes, seed " + seed;
+        for (int op = 0; op < OPERATIONS; op++) {
+            boolean flipped = isFlipped(array, list);
+            int from = rand.nextInt(n);
+            int to = rand.nextInt(n);
+            switch (rand.nextInt(8)) {
+                case 0: // tour is replaced by new route from time to time
+                    if (rand.nextInt(10) == 0) {
+                        int[] other = randomRoute(n, rand);
+                        array.setRoute(other);
+                        list.setRoute(other);
+                    }
+                    break;
+                case 1:
+                case 2: // 2-opt move replacing edges (from, next(from)) and (to, next(to))
+                    int first = list.next(from);
+                    if (flipped)
+                        array.reverse(to, first);
+                    else
+                        array.reverse(first, to);
+                    list.reverse(first, to);
+                    break;
+                default: // path from "from" forward to "to" in orientation of list tour
+                    if (flipped)
+                        array.reverse(to, from);
+                    else
+                        array.reverse(from, to);
+                    list.reverse(from, to);
+                    break;
+            }
+            assertSameCycle(array, list, context + ", operation " + op);
+            assertBlocks(list, context + ", operation " + op);
+            flipped = isFlipped(array, list);
+            for (int q = 0; q < 10; q++) {
+                int a = rand.nextInt(n);
+                int b = rand.nextInt(n);
+                int c = rand.nextInt(n);
+                boolean expected = flipped ? array.between(c, b, a) : array.between(a, b, c);
+                assertEquals(expected, list.between(a, b, c),
+                        context + ", operation " + op + ": between(" + a + ", " + b + ", " + c + ")");
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if list tour traverses the cycle in opposite direction than array tour.
+     */
+    private static boolean isFlipped(ArrayTour array, TwoLevelListTour list) {
+        return list.getNodesCount() > 2 && list.next(0) != array.next(0);
+    }
+
+    private static void assertSameCycle(ArrayTour array, TwoLevelListTour list, String context) {
+        final int n = array.getNodesCount();
+        boolean flipped = isFlipped(array, list);
+        for (int node = 0; node < n; node++) {
+            assertEquals(flipped ? array.prev(node) : array.next(node), list.next(node), context + ": next(" + node + ")");
+            assertEquals(flipped ? array.next(node) : array.prev(node), list.prev(node), context + ": prev(" + node + ")");
+        }
+        int[] route = list.getRoute();
+        assertEquals(n + 1, route.length, context + ": route length");
+        assertEquals(route[0], route[n], context + ": route is not closed");
+        boolean[] visited = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            assertTrue(!visited[route[i]], context + ": node " + route[i] + " is twice in route");
+            visited[route[i]] = true;
+            assertEquals(list.next(route[i]), route[i + 1], context + ": route doesn't follow next()");
+        }
+    }
+
+    private static void assertBlocks(TwoLevelListTour list, String context) {
+        final int n = list.getNodesCount();
+        final int S = list.getBlockCapacity();
+        int m = list.getBlocksCount();
+        assertTrue((long) m * S < 2L * n + S, context + ": " + m + " blocks of capacity " + S);
+        int nodes = 0;
+        for (int p = 0; p < m; p++) {
+            int size = list.getBlockSize(p);
+            assertTrue(size > 0 && size <= S, context + ": block on position " + p + " has " + size + " nodes");
+            nodes += size;
+        }
+        assertEquals(n, nodes, context + ": nodes count of blocks");
+    }
+
+    private static int[] randomRoute(int n, Random rand) {
+        int[] route = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            route[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int hlp = route[i];
+            route[i] = route[j];
+            route[j] = hlp;
+        }
+        route[n] = route[0];
+        return route;
+    }
+}